@@ -0,0 +1,69 @@
+package io.validator.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH json result with the checked-in baseline, usage:
+ * BaselineComparison baseline.json result.json [max regression percent].
+ * Exits with 1 when a benchmark is slower than the baseline by more than the allowed percent. A benchmark whose
+ * score error in the baseline or the current run is above that percent of its score is reported as noisy and not
+ * compared, its change could be noise either way.
+ */
+public class BaselineComparison {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        boolean regressed = false;
+
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode result = entry.getValue();
+            double score = result.at("/primaryMetric/score").asDouble();
+            String unit = result.at("/primaryMetric/scoreUnit").asText();
+            JsonNode base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-90s %14s %14.3f %9s %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            double baseScore = base.at("/primaryMetric/score").asDouble();
+            if (noisy(base, maxRegression) || noisy(result, maxRegression)) {
+                System.out.printf("%-90s %14.3f %14.3f %9s %s%n", entry.getKey(), baseScore, score, "noisy", unit);
+                continue;
+            }
+            double change = (score - baseScore) / baseScore * 100;
+            double regression = "thrpt".equals(result.get("mode").asText()) ? -change : change;
+            boolean failed = regression > maxRegression;
+            regressed |= failed;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), baseScore, score, change, unit, failed ? " REGRESSION" : "");
+        }
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean noisy(JsonNode result, double maxRegression) {
+        double error = result.at("/primaryMetric/scoreError").asDouble();
+        return Double.isNaN(error) || error > result.at("/primaryMetric/score").asDouble() * maxRegression / 100;
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            if (result.has("params")) {
+                result.get("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            }
+            results.put(result.get("benchmark").asText() + (params.isEmpty() ? "" : " " + params), result);
+        }
+        return results;
+    }
+}
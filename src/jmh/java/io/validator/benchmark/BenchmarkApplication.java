@@ -0,0 +1,46 @@
+package io.validator.benchmark;
+
+import io.validator.ValidatorApplication;
+import io.validator.repository.LoadRepository;
+import io.validator.service.ValidationService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.stream.Stream;
+
+/**
+ * Application context for benchmarks, embedded Redis and H2 from application.properties
+ * on a separate Redis port so a running instance does not collide.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(ValidatorApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments(properties));
+    }
+
+    public static ConfigurableApplicationContext startWeb(String... properties) {
+        return new SpringApplicationBuilder(ValidatorApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run(arguments(Stream.concat(Stream.of("server.port=0"), Stream.of(properties)).toArray(String[]::new)));
+    }
+
+    /**
+     * Command line arguments, unlike builder default properties they take precedence over application.properties.
+     */
+    private static String[] arguments(String... properties) {
+        return Stream.concat(Stream.of("spring.data.redis.port=6381", "logging.level.root=WARN"), Stream.of(properties))
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+    }
+
+    static void clean(ConfigurableApplicationContext context) {
+        context.getBean(LoadRepository.class).deleteAllInBatch();
+        context.getBean(ValidationService.class).reload();
+    }
+}
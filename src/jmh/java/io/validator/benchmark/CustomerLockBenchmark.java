@@ -0,0 +1,91 @@
+package io.validator.benchmark;
+
+import io.validator.service.limit.DownstreamLimiters;
+import io.validator.service.lock.CustomerLocks;
+import io.validator.service.lock.RedissonCustomerLocks;
+import io.validator.service.lock.StripedCustomerLocks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock and unlock of a random customer with the in-process striped locks and the Redisson locks,
+ * sample time mode reports the p99 of one acquire/release pair.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class CustomerLockBenchmark {
+
+    private static final int REDIS_PORT = 6380;
+
+    @Param({"local", "redisson"})
+    private String mode;
+    @Param({"1000"})
+    private int customers;
+
+    private String[] customerIds;
+    private CustomerLocks customerLocks;
+    private RedisServer redisServer;
+    private RedissonClient redissonClient;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        customerIds = new String[customers];
+        for (int i = 0; i < customers; i++) {
+            customerIds[i] = String.valueOf(i);
+        }
+        if ("redisson".equals(mode)) {
+            redisServer = new RedisServer(REDIS_PORT);
+            redisServer.start();
+            Config config = new Config();
+            config.useSingleServer().setAddress("127.0.0.1:" + REDIS_PORT);
+            redissonClient = Redisson.create(config);
+            customerLocks = new RedissonCustomerLocks(redissonClient, new DownstreamLimiters(0, 0));
+        } else {
+            customerLocks = new StripedCustomerLocks(1024);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Benchmark
+    public boolean lockUnlock() throws InterruptedException {
+        String customerId = customerIds[ThreadLocalRandom.current().nextInt(customerIds.length)];
+        if (customerLocks.tryLock(customerId, 10, TimeUnit.SECONDS)) {
+            customerLocks.unlock(customerId);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,98 @@
+package io.validator.benchmark;
+
+import io.validator.service.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * validateFile on the bundled input.txt and on a generated file, the load table is emptied
+ * before every run so each run validates new loads only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class FileValidationBenchmark {
+
+    @Param({"bundled", "1000000"})
+    private String input;
+
+    private ConfigurableApplicationContext context;
+    private ValidationService validationService;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = BenchmarkApplication.start();
+        validationService = context.getBean(ValidationService.class);
+        file = Files.createTempFile("validation-benchmark", ".txt");
+        if ("bundled".equals(input)) {
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream("input.txt")) {
+                Files.write(file, in.readAllBytes());
+            }
+        } else {
+            generate(file, Integer.parseInt(input));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clean() {
+        BenchmarkApplication.clean(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void validateFile() throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8))) {
+            validationService.validateFile(in, writer);
+        }
+    }
+
+    static void generate(Path file, int lines) throws IOException {
+        Random random = new Random(42);
+        LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                time = time.plusSeconds(random.nextInt(120));
+                writer.write("{\"id\":\"" + i + "\",\"customer_id\":\"" + random.nextInt(10000)
+                        + "\",\"load_amount\":\"$" + random.nextInt(6000) + "." + (10 + random.nextInt(90))
+                        + "\",\"time\":\"" + DateTimeFormatter.ISO_INSTANT.format(time.toInstant(ZoneOffset.UTC)) + "\"}\n");
+            }
+        }
+    }
+}
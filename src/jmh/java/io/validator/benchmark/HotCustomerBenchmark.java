@@ -0,0 +1,116 @@
+package io.validator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP validations of unrelated customers while many requests of hot customers are in flight. The hot customers'
+ * locks are held by the benchmark, so each hot request waits the full lock timeout on its request thread.
+ * threads=virtual needs the java21 profile: mvn -Pbenchmark,java21 test-compile exec:exec -Djmh.args="HotCustomer"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+public class HotCustomerBenchmark {
+
+    private static final int HOT_CUSTOMERS = 10;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"500"})
+    private int hotInFlight;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<RLock> hotLocks = new ArrayList<>();
+    private volatile boolean running;
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private URI uri;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.startWeb(
+                "validation.threads.virtual=" + threads.equals("virtual"),
+                "validation.concurrency.db=10",
+                "validation.concurrency.redis=64");
+        if (threads.equals("virtual") && !context.containsBean("virtualThreadProtocolHandler")) {
+            throw new IllegalStateException("threads=virtual needs the classes of the java21 profile");
+        }
+        uri = URI.create("http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort() + "/api/v1/validation");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        RedissonClient redissonClient = context.getBean(RedissonClient.class);
+        for (int i = 0; i < HOT_CUSTOMERS; i++) {
+            RLock lock = redissonClient.getLock("customer_lock_hot-" + i);
+            lock.lock(1, TimeUnit.HOURS);
+            hotLocks.add(lock);
+        }
+        running = true;
+        for (int i = 0; i < hotInFlight; i++) {
+            sendHot();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        running = false;
+        hotLocks.forEach(RLock::forceUnlock);
+        context.close();
+    }
+
+    @Benchmark
+    public int validateColdCustomer() throws Exception {
+        long next = sequence.getAndIncrement();
+        return httpClient.send(request("cold-" + next, next), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void sendHot() {
+        long next = sequence.getAndIncrement();
+        httpClient.sendAsync(request("hot-" + next % HOT_CUSTOMERS, next), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (running) {
+                        sendHot();
+                    }
+                });
+    }
+
+    private HttpRequest request(String customerId, long id) {
+        String body = "{\"id\":\"" + id + "\",\"customer_id\":\"" + customerId + "\",\"load_amount\":\"$10.00\",\"time\":\"2000-01-03T00:00:00Z\"}";
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
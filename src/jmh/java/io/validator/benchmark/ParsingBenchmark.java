@@ -0,0 +1,114 @@
+package io.validator.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.validator.config.AppConfig;
+import io.validator.dto.LoadRequest;
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.service.ndjson.LoadRequestReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadRequest JSON parsing with the application ObjectMapper and LoadEntity creation with its amount parsing.
+ * The amount and limit check benchmarks compare long cents against the former BigDecimal path, the file benchmarks
+ * compare the NDJSON token reader against line-by-line databinding of the bundled input. Run with -prof gc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+    private static final String LINE = "{\"id\":\"15887\",\"customer_id\":\"528\",\"load_amount\":\"$3318.47\",\"time\":\"2000-01-01T00:00:00Z\"}";
+
+    private static final String AMOUNT = "$3318.47";
+
+    private final BigDecimal limit = new BigDecimal("5000");
+    private final BigDecimal loadedAmount = new BigDecimal("1200.50");
+    private final long limitCents = 500000;
+    private final long loadedCents = 120050;
+    private ObjectMapper objectMapper;
+    private LoadRequest loadRequest;
+    private byte[] file;
+
+    @Setup
+    public void setup() throws Exception {
+        file = ParsingBenchmark.class.getClassLoader().getResourceAsStream("input.txt").readAllBytes();
+        objectMapper = new AppConfig().objectMapper();
+        loadRequest = LoadRequest.builder()
+                .id("15887")
+                .customerId("528")
+                .loadAmount("$3318.47")
+                .time(LocalDateTime.of(2000, 1, 1, 0, 0))
+                .build();
+    }
+
+    @Benchmark
+    public LoadRequest parseRequest() throws Exception {
+        return objectMapper.readValue(LINE, LoadRequest.class);
+    }
+
+    @Benchmark
+    public LoadEntity parseAmount() {
+        return new LoadEntity(loadRequest);
+    }
+
+    @Benchmark
+    public long parseCents() {
+        return Money.parseCents(AMOUNT);
+    }
+
+    @Benchmark
+    public BigDecimal parseBigDecimal() {
+        return new BigDecimal(AMOUNT.replace("$", ""));
+    }
+
+    @Benchmark
+    public boolean limitCheckCents() {
+        return Money.parseCents(AMOUNT) + loadedCents <= limitCents;
+    }
+
+    @Benchmark
+    public boolean limitCheckBigDecimal() {
+        return new BigDecimal(AMOUNT.replace("$", "")).add(loadedAmount).compareTo(limit) <= 0;
+    }
+
+    @Benchmark
+    public void parseFileTokens(Blackhole blackhole) throws Exception {
+        try (LoadRequestReader requests = new LoadRequestReader(objectMapper.getFactory(), new ByteArrayInputStream(file))) {
+            while (requests.next()) {
+                blackhole.consume(requests.request());
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseFileDatabind(Blackhole blackhole) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole.consume(objectMapper.readValue(line, LoadRequest.class));
+            }
+        }
+    }
+}
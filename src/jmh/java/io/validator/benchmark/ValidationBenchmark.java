@@ -0,0 +1,75 @@
+package io.validator.benchmark;
+
+import io.validator.dto.LoadRequest;
+import io.validator.dto.LoadResponse;
+import io.validator.service.ValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ValidationService.validate for new loads of one customer and of many customers,
+ * every load gets a fresh id and a time one hour after the previous load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(3)
+@Threads(8)
+public class ValidationBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2000, 1, 3, 0, 0);
+
+    @Param({"1", "10000"})
+    private int customers;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private ValidationService validationService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        validationService = context.getBean(ValidationService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void clean() {
+        BenchmarkApplication.clean(context);
+        sequence.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LoadResponse validate() {
+        long next = sequence.getAndIncrement();
+        return validationService.validate(LoadRequest.builder()
+                .id(String.valueOf(next))
+                .customerId(String.valueOf(next % customers))
+                .loadAmount("$" + (100 + next % 900) + ".25")
+                .time(START.plusHours(next / customers))
+                .build());
+    }
+}
@@ -0,0 +1,228 @@
+package io.validator.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.validator.benchmark.BenchmarkApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+
+/**
+ * Open-loop load generator for the single and the NDJSON stream endpoints. Requests are sent at --rate loads per
+ * second from a LoadStream and every latency is measured from the time the request was scheduled, so a stalled
+ * server shows up in the percentiles instead of slowing the generator down. Without --target an instance is started
+ * in-process with embedded Redis and H2. --warmup loads are sent to the single endpoint first and not measured.
+ * Results go to --output as json, with --baseline they are compared to an earlier result of the same profile and
+ * the run exits with 1 when p99 or throughput regress by more than --max.regression percent or errors appear.
+ * Usage: mvn -Pbenchmark test-compile exec:exec@loadgen -Dloadgen.args="--size=20000 --rate=500"
+ */
+public final class LoadGenerator {
+
+    private static final String SINGLE_PATH = "/api/v1/validation";
+    private static final String STREAM_PATH = "/api/v1/validation/process-stream";
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String target;
+    private final double rate;
+    private final int concurrency;
+    private final int chunkSize;
+    private final Duration timeout;
+
+    private LoadGenerator(String target, Map<String, String> options) {
+        this.target = target;
+        this.rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        this.chunkSize = Integer.parseInt(options.getOrDefault("chunk", "1000"));
+        this.timeout = Duration.parse(options.getOrDefault("timeout", "PT30S"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        LoadProfile profile = LoadProfile.of(options);
+        String mode = options.getOrDefault("mode", "both");
+        String runId = options.getOrDefault("run.id", Long.toString(System.currentTimeMillis(), 36));
+        ConfigurableApplicationContext context = null;
+        String target = options.get("target");
+        if (target == null) {
+            context = BenchmarkApplication.startWeb("logging.level.io.validator=WARN");
+            target = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        }
+        List<LoadResult> results = new ArrayList<>();
+        try {
+            LoadGenerator generator = new LoadGenerator(target, options);
+            int warmup = Integer.parseInt(options.getOrDefault("warmup", "2000"));
+            if (warmup > 0) {
+                generator.single(LoadStream.generate(new LoadProfile(profile.seed() + 1, warmup, profile.customers(), profile.skew(),
+                        profile.duplicateRate(), profile.disorderRate(), profile.maxDisorder(), profile.meanGap()), runId + "-w-"));
+            }
+            if (!mode.equals("file")) {
+                results.add(generator.single(LoadStream.generate(profile, runId + "-s-")));
+            }
+            if (!mode.equals("single")) {
+                results.add(generator.stream(LoadStream.generate(profile, runId + "-f-")));
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("profile", profile);
+        report.put("rate", Double.parseDouble(options.getOrDefault("rate", "200")));
+        report.put("warmup", Integer.parseInt(options.getOrDefault("warmup", "2000")));
+        report.put("results", results);
+        File output = new File(options.getOrDefault("output", "target/loadgen-result.json"));
+        objectMapper.writeValue(output, report);
+        System.out.printf("%-8s %9s %9s %12s %10s %10s %10s %10s%n", "endpoint", "loads", "errors", "loads/s", "p50 us", "p99 us", "p999 us", "max us");
+        results.forEach(result -> System.out.printf("%-8s %9d %9d %12.1f %10d %10d %10d %10d %s%n", result.endpoint(), result.loads(), result.errors(),
+                result.loadsPerSecond(), result.p50(), result.p99(), result.p999(), result.max(), result.errorKinds().isEmpty() ? "" : result.errorKinds()));
+        System.out.println("result written to " + output);
+
+        String baseline = options.get("baseline");
+        if (baseline != null && compare(objectMapper.readTree(new File(baseline)), objectMapper.readTree(output),
+                Double.parseDouble(options.getOrDefault("max.regression", "20")))) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * One request per load to the single endpoint, at most --concurrency in flight.
+     */
+    private LoadResult single(List<String> lines) throws InterruptedException {
+        URI uri = URI.create(target + SINGLE_PATH);
+        List<HttpRequest> requests = new ArrayList<>(lines.size());
+        lines.forEach(line -> requests.add(request(uri, "application/json", line)));
+        return run("single", requests, 1, lines.size(), concurrency, null);
+    }
+
+    /**
+     * Chunks of --chunk lines to the stream endpoint, each chunk sent when the rate reaches its first load.
+     */
+    private LoadResult stream(List<String> lines) throws InterruptedException {
+        URI uri = URI.create(target + STREAM_PATH);
+        List<HttpRequest> requests = new ArrayList<>();
+        for (int from = 0; from < lines.size(); from += chunkSize) {
+            requests.add(request(uri, "application/x-ndjson", String.join("\n", lines.subList(from, Math.min(from + chunkSize, lines.size()))) + "\n"));
+        }
+        return run("file", requests, chunkSize, lines.size(), Math.max(1, concurrency / 16), body -> body.chars().filter(c -> c == '\n').count());
+    }
+
+    private LoadResult run(String endpoint, List<HttpRequest> requests, int loadsPerRequest, long loads, int maxInFlight,
+                           ToLongFunction<String> responseLoads) throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(3);
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        CountDownLatch done = new CountDownLatch(requests.size());
+        long intervalNanos = (long) (loadsPerRequest * 1e9 / rate);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests.size(); i++) {
+            long scheduled = start + i * intervalNanos;
+            for (long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            int expected = (int) Math.min(loadsPerRequest, loads - (long) i * loadsPerRequest);
+            httpClient.sendAsync(requests.get(i), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).whenComplete((response, e) -> {
+                latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+                String error = e != null ? e.getClass().getSimpleName()
+                        : response.statusCode() != 200 ? "http-" + response.statusCode()
+                        : responseLoads != null && responseLoads.applyAsLong(response.body()) != expected ? "missing-responses"
+                        : null;
+                if (error != null) {
+                    errors.computeIfAbsent(error, kind -> new LongAdder()).increment();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        Map<String, Long> errorKinds = new TreeMap<>();
+        errors.forEach((kind, count) -> errorKinds.put(kind, count.sum()));
+        return LoadResult.of(endpoint, requests.size(), loads, errorKinds, System.nanoTime() - start, latencies);
+    }
+
+    private HttpRequest request(URI uri, String contentType, String body) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    /**
+     * Prints the change of every endpoint against the baseline and tells whether one regressed.
+     */
+    private static boolean compare(JsonNode baseline, JsonNode current, double maxRegression) {
+        if (!baseline.get("profile").equals(current.get("profile")) || !baseline.get("rate").equals(current.get("rate"))
+                || !baseline.path("warmup").equals(current.path("warmup"))) {
+            System.out.println("baseline was recorded with another profile or rate, results are not comparable");
+            return true;
+        }
+        Map<String, JsonNode> base = new HashMap<>();
+        baseline.get("results").forEach(result -> base.put(result.get("endpoint").asText(), result));
+        boolean regressed = false;
+        System.out.printf("%-8s %-14s %12s %12s %9s%n", "endpoint", "metric", "baseline", "current", "change");
+        for (JsonNode result : current.get("results")) {
+            JsonNode before = base.get(result.get("endpoint").asText());
+            if (before == null) {
+                continue;
+            }
+            regressed |= report(result, before, "p99", maxRegression, false);
+            regressed |= report(result, before, "loadsPerSecond", maxRegression, true);
+            if (result.get("errors").asLong() > before.get("errors").asLong()) {
+                System.out.printf("%-8s %-14s %12d %12d REGRESSION%n", result.get("endpoint").asText(), "errors", before.get("errors").asLong(), result.get("errors").asLong());
+                regressed = true;
+            }
+        }
+        return regressed;
+    }
+
+    private static boolean report(JsonNode result, JsonNode before, String metric, double maxRegression, boolean higherIsBetter) {
+        double value = result.get(metric).asDouble();
+        double baseValue = before.get(metric).asDouble();
+        double change = (value - baseValue) / baseValue * 100;
+        boolean failed = (higherIsBetter ? -change : change) > maxRegression;
+        System.out.printf("%-8s %-14s %12.1f %12.1f %+8.1f%%%s%n", result.get("endpoint").asText(), metric, baseValue, value, change, failed ? " REGRESSION" : "");
+        return failed;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
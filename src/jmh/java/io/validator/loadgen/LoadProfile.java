@@ -0,0 +1,29 @@
+package io.validator.loadgen;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Shape of a generated load stream. The same profile and seed always give the same stream, only the run id prefix
+ * of the ids differs so a stream can be sent again to a running instance without being taken for duplicates.
+ *
+ * @param skew          Zipf exponent of the customer popularity, 0 is uniform, 1 and more makes a few customers hot
+ * @param duplicateRate share of loads that repeat a recent load with the same id, like client retries
+ * @param disorderRate  share of loads whose time is moved back by up to maxDisorder
+ * @param meanGap       mean time between two loads of the stream
+ */
+public record LoadProfile(long seed, int size, int customers, double skew, double duplicateRate, double disorderRate,
+                          Duration maxDisorder, Duration meanGap) {
+
+    public static LoadProfile of(Map<String, String> options) {
+        return new LoadProfile(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Integer.parseInt(options.getOrDefault("size", "10000")),
+                Integer.parseInt(options.getOrDefault("customers", "1000")),
+                Double.parseDouble(options.getOrDefault("skew", "1.0")),
+                Double.parseDouble(options.getOrDefault("duplicates", "0.01")),
+                Double.parseDouble(options.getOrDefault("disorder", "0.05")),
+                Duration.parse(options.getOrDefault("max.disorder", "PT6H")),
+                Duration.parse(options.getOrDefault("mean.gap", "PT1M")));
+    }
+}
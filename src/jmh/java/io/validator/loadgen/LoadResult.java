@@ -0,0 +1,18 @@
+package io.validator.loadgen;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Outcome of one endpoint run, latencies in microseconds from the scheduled send time of each request.
+ */
+public record LoadResult(String endpoint, long requests, long loads, long errors, Map<String, Long> errorKinds,
+                         double loadsPerSecond, long p50, long p99, long p999, long max) {
+
+    static LoadResult of(String endpoint, long requests, long loads, Map<String, Long> errorKinds, long elapsedNanos, Histogram latencies) {
+        long errors = errorKinds.values().stream().mapToLong(Long::longValue).sum();
+        return new LoadResult(endpoint, requests, loads, errors, errorKinds, loads * 1e9 / elapsedNanos,
+                latencies.getValueAtPercentile(50), latencies.getValueAtPercentile(99), latencies.getValueAtPercentile(99.9), latencies.getMaxValue());
+    }
+}
@@ -0,0 +1,67 @@
+package io.validator.loadgen;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates NDJSON load requests in the format of input.txt from a LoadProfile: customers drawn from a Zipf
+ * distribution, log-uniform amounts between $1 and $5000, exponential gaps between load times, retried loads
+ * repeating a recent line and late loads with their time moved back.
+ */
+public final class LoadStream {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    private static final LocalDateTime START = LocalDateTime.parse("2000-01-03T00:00:00");
+    private static final int RETRY_HORIZON = 1000;
+    private static final double MIN_CENTS = Math.log(100);
+    private static final double MAX_CENTS = Math.log(500000);
+
+    private LoadStream() {
+    }
+
+    public static List<String> generate(LoadProfile profile, String prefix) {
+        Random random = new Random(profile.seed());
+        double[] popularity = popularity(profile.customers(), profile.skew());
+        List<String> lines = new ArrayList<>(profile.size());
+        double meanGapSeconds = profile.meanGap().toMillis() / 1000.0;
+        long maxDisorderSeconds = profile.maxDisorder().toSeconds();
+        LocalDateTime now = START;
+        long ids = 0;
+        while (lines.size() < profile.size()) {
+            if (!lines.isEmpty() && random.nextDouble() < profile.duplicateRate()) {
+                lines.add(lines.get(lines.size() - 1 - random.nextInt(Math.min(lines.size(), RETRY_HORIZON))));
+                continue;
+            }
+            now = now.plusSeconds(Math.round(-Math.log(1 - random.nextDouble()) * meanGapSeconds));
+            LocalDateTime time = maxDisorderSeconds > 0 && random.nextDouble() < profile.disorderRate()
+                    ? now.minusSeconds((long) (random.nextDouble() * maxDisorderSeconds))
+                    : now;
+            int customer = Arrays.binarySearch(popularity, random.nextDouble());
+            customer = customer < 0 ? Math.min(-customer - 1, popularity.length - 1) : customer;
+            long cents = Math.round(Math.exp(MIN_CENTS + random.nextDouble() * (MAX_CENTS - MIN_CENTS)));
+            lines.add(String.format("{\"id\":\"%s%d\",\"customer_id\":\"%s%d\",\"load_amount\":\"$%d.%02d\",\"time\":\"%s\"}",
+                    prefix, ++ids, prefix, customer, cents / 100, cents % 100, TIME.format(time)));
+        }
+        return lines;
+    }
+
+    /**
+     * Cumulative Zipf probabilities of the customers, customer k is drawn with weight 1 / (k + 1)^skew.
+     */
+    private static double[] popularity(int customers, double skew) {
+        double[] cumulative = new double[customers];
+        double total = 0;
+        for (int k = 0; k < customers; k++) {
+            total += 1 / Math.pow(k + 1, skew);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < customers; k++) {
+            cumulative[k] /= total;
+        }
+        return cumulative;
+    }
+}
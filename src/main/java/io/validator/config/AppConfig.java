@@ -4,12 +4,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import io.validator.controller.LoadController;
+import io.validator.service.warmup.StartupWarmup;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -43,7 +47,17 @@ public class AppConfig {
                 .registerModule(new JavaTimeModule());
     }
 
+    /**
+     * With spring.main.lazy-initialization (fast-start profile) the validation path and everything it depends on
+     * is still created at startup, only beans off that path wait for their first use.
+     */
     @Bean
+    public static LazyInitializationExcludeFilter validationPathEagerInitialization() {
+        return LazyInitializationExcludeFilter.forBeanTypes(LoadController.class, StartupWarmup.class);
+    }
+
+    @Bean
+    @DependsOn("redisStarter")
     public RedissonClient RedissonClient(
             @Value("${spring.data.redis.port}") int redisPort,
             @Value("${spring.data.redis.host}") String redisHost) {
@@ -2,6 +2,7 @@ package io.validator.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
@@ -11,6 +12,7 @@ import org.springframework.data.redis.repository.configuration.EnableRedisReposi
 public class RedisConfiguration {
 
     @Bean
+    @DependsOn("redisStarter")
     public LettuceConnectionFactory redisConnectionFactory(
             RedisProperties redisProperties) {
         return new LettuceConnectionFactory(
@@ -2,6 +2,7 @@ package io.validator.config;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import redis.embedded.RedisServer;
 
@@ -9,17 +10,21 @@ import redis.embedded.RedisServer;
 public class RedisStarter {
     private RedisServer redisServer;
 
-    public RedisStarter(RedisProperties redisProperties) {
-        this.redisServer = new RedisServer(redisProperties.getRedisPort());
+    public RedisStarter(RedisProperties redisProperties, @Value("${validation.redis.embedded}") boolean embedded) {
+        this.redisServer = embedded ? new RedisServer(redisProperties.getRedisPort()) : null;
     }
 
     @PostConstruct
     public void postConstruct() {
-        redisServer.start();
+        if (redisServer != null) {
+            redisServer.start();
+        }
     }
 
     @PreDestroy
     public void preDestroy() {
-        redisServer.stop();
+        if (redisServer != null) {
+            redisServer.stop();
+        }
     }
 }
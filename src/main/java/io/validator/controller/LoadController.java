@@ -1,36 +1,29 @@
 package io.validator.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.validator.dto.LoadRequest;
 import io.validator.dto.LoadResponse;
-import io.validator.repository.LoadRepository;
 import io.validator.service.ValidationService;
-import jakarta.annotation.PostConstruct;
+import io.validator.service.shard.ShardRouter;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 @RestController
@@ -38,23 +31,50 @@ import java.util.Map;
 @Slf4j
 public class LoadController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ValidationService validationService;
+    private final ShardRouter shardRouter;
 
     @PostMapping("/api/v1/validation")
-    public LoadResponse validateLoad(@RequestBody LoadRequest loadRequest) {
-        return validationService.validate(loadRequest);
+    public LoadResponse validateLoad(@RequestBody LoadRequest loadRequest,
+                                     @RequestHeader(value = ShardRouter.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return shardRouter.validate(loadRequest, forwardedBy != null);
+    }
+
+    @PostMapping("/api/v1/validation/async")
+    public CompletableFuture<LoadResponse> validateLoadAsync(@RequestBody LoadRequest loadRequest,
+                                                             @RequestHeader(value = ShardRouter.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return shardRouter.validateAsync(loadRequest, forwardedBy != null);
+    }
+
+    @PostMapping("/api/v1/validation/batch")
+    public List<LoadResponse> validateBatch(@RequestBody List<LoadRequest> loadRequests,
+                                            @RequestHeader(value = ShardRouter.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return shardRouter.validateBatch(loadRequests, forwardedBy != null);
     }
 
     @PostMapping("/api/v1/validation/process-file")
-    @SneakyThrows
-    public ResponseEntity<byte[]> processFile(@RequestParam("file") MultipartFile file) {
-            String response = validationService.validateFile(file);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentDispositionFormData("attachment", "output.txt");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(response.getBytes(StandardCharsets.UTF_8));
-        }
+    public ResponseEntity<StreamingResponseBody> processFile(@RequestParam("file") MultipartFile file) {
+        shardRouter.requireUnsharded("process-file");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDispositionFormData("attachment", "output.txt");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(out -> validationService.validateFile(file.getInputStream(), writer(out)));
+    }
+
+    @PostMapping("/api/v1/validation/process-stream")
+    public ResponseEntity<StreamingResponseBody> processStream(InputStream inputStream) {
+        shardRouter.requireUnsharded("process-stream");
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(out -> validationService.validateFile(inputStream, writer(out)));
+    }
+
+    private static BufferedWriter writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
 }
@@ -2,19 +2,22 @@ package io.validator.entity;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.validator.dto.LoadRequest;
+import io.validator.money.Money;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Table(name = "load")
@@ -25,14 +28,16 @@ import java.time.LocalDateTime;
 public class LoadEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "load_seq")
+    @SequenceGenerator(name = "load_seq", sequenceName = "load_seq", allocationSize = 50)
     private Long id;
     @Column(name = "load_id")
     private String loadId;
     @Column(name = "customer_id")
     private String customerId;
     @Column(name = "load_amount")
-    private BigDecimal loadAmount;
+    @Convert(converter = CentsConverter.class)
+    private long loadAmountCents;
     @Column(name = "timestamp")
     private LocalDateTime time;
     @Column(name = "daily_count_accepted")
@@ -41,11 +46,29 @@ public class LoadEntity {
     private boolean dailyLimitAccepted;
     @Column(name = "weekly_limit_accepted")
     private boolean weeklyLimitAccepted;
+    @Column(name = "rejected_by_rule")
+    private String rejectedByRule;
 
     public LoadEntity (LoadRequest request) {
+        this(request, Money.parseCents(request.getLoadAmount()));
+    }
+
+    public LoadEntity (LoadRequest request, long loadAmountCents) {
         this.customerId = request.getCustomerId();
-        this.time = request.getTime();
-        this.loadAmount = new BigDecimal(request.getLoadAmount().replace("$",""));
+        this.time = storedTime(request.getTime());
+        this.loadAmountCents = loadAmountCents;
         this.loadId = request.getId();
     }
+
+    public boolean isAccepted() {
+        return dailyCountAccepted && dailyLimitAccepted && weeklyLimitAccepted && rejectedByRule == null;
+    }
+
+    /**
+     * The time as the timestamp column keeps it, rounded half up to microseconds, so an entity compares in memory
+     * the same as its saved row.
+     */
+    private static LocalDateTime storedTime(LocalDateTime time) {
+        return time.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+    }
 }
@@ -0,0 +1,88 @@
+package io.validator.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point amounts held as long cents. Parsing reads "$1234.56" style amounts
+ * (optional '$', optional sign, at most two fraction digits) straight from the characters,
+ * anything else takes the BigDecimal path of the amount without its '$' signs, rounded half up to cents.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    public static long parseCents(CharSequence value) {
+        return parse(value, null, 0, value.length());
+    }
+
+    public static long parseCents(char[] chars, int offset, int length) {
+        return parse(null, chars, offset, length);
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static long parse(CharSequence text, char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        if (i < end && charAt(text, chars, i) == '$') {
+            i++;
+        }
+        boolean negative = false;
+        if (i < end && (charAt(text, chars, i) == '-' || charAt(text, chars, i) == '+')) {
+            negative = charAt(text, chars, i) == '-';
+            i++;
+        }
+        long cents = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        try {
+            for (; i < end; i++) {
+                char c = charAt(text, chars, i);
+                if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else if (c >= '0' && c <= '9' && fractionDigits < 2) {
+                    cents = Math.addExact(Math.multiplyExact(cents, 10), c - '0');
+                    digits++;
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else {
+                    return parseDecimal(string(text, chars, offset, length));
+                }
+            }
+            if (digits == 0) {
+                return parseDecimal(string(text, chars, offset, length));
+            }
+            for (int f = Math.max(fractionDigits, 0); f < 2; f++) {
+                cents = Math.multiplyExact(cents, 10);
+            }
+        } catch (ArithmeticException e) {
+            return parseDecimal(string(text, chars, offset, length));
+        }
+        return negative ? -cents : cents;
+    }
+
+    private static long parseDecimal(String value) {
+        try {
+            return toCents(new BigDecimal(value.replace("$", "")));
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new NumberFormatException("invalid amount " + value);
+        }
+    }
+
+    private static char charAt(CharSequence text, char[] chars, int index) {
+        return chars != null ? chars[index] : text.charAt(index);
+    }
+
+    private static String string(CharSequence text, char[] chars, int offset, int length) {
+        return chars != null ? new String(chars, offset, length) : text.subSequence(offset, offset + length).toString();
+    }
+}
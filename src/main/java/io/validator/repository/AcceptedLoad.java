@@ -0,0 +1,13 @@
+package io.validator.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface AcceptedLoad {
+
+    String getCustomerId();
+
+    LocalDateTime getTime();
+
+    BigDecimal getAmount();
+}
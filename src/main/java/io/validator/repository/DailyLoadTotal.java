@@ -0,0 +1,15 @@
+package io.validator.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface DailyLoadTotal {
+
+    String getCustomerId();
+
+    LocalDate getLoadDay();
+
+    BigDecimal getAmount();
+
+    long getLoadCount();
+}
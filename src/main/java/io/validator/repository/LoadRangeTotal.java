@@ -0,0 +1,10 @@
+package io.validator.repository;
+
+import java.math.BigDecimal;
+
+public interface LoadRangeTotal {
+
+    BigDecimal getAmount();
+
+    long getLoadCount();
+}
@@ -2,21 +2,62 @@ package io.validator.repository;
 
 import io.validator.entity.LoadEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface LoadRepository extends JpaRepository<LoadEntity, String> {
 
-    @Query(value = "SELECT coalesce(sum(l.load_amount),0) from load l where l.customer_id = :customerId and  l.daily_count_accepted is true and l.daily_limit_accepted is true and l.weekly_limit_accepted is true and timestamp >= :from and timestamp <= :to", nativeQuery = true)
-    BigDecimal getValidLoadAmountBetweenDates(String customerId, LocalDateTime from, LocalDateTime to);
-    @Query(value = "SELECT coalesce(count (*), 0)  from load l where l.customer_id = :customerId and  l.daily_count_accepted is true and l.daily_limit_accepted is true and l.weekly_limit_accepted is true and timestamp >= :from and timestamp <= :to", nativeQuery = true)
-    int getValidLoadCountBetweenDates(String customerId, LocalDateTime from, LocalDateTime to);
+    @Query(value = "SELECT coalesce(sum(case when l.timestamp >= :dayStart then l.load_amount end), 0) as dailyAmount, count(case when l.timestamp >= :dayStart then 1 end) as dailyCount, coalesce(sum(l.load_amount), 0) as weeklyAmount from load l where l.customer_id = :customerId and  l.daily_count_accepted is true and l.daily_limit_accepted is true and l.weekly_limit_accepted is true and l.rejected_by_rule is null and timestamp >= :weekStart and timestamp <= :to", nativeQuery = true)
+    LoadWindowTotals getValidLoadTotalsBetweenDates(String customerId, LocalDateTime weekStart, LocalDateTime dayStart, LocalDateTime to);
+    @Query(value = "SELECT l.customer_id as customerId, cast(l.timestamp as date) as loadDay, sum(l.load_amount) as amount, count(*) as loadCount from load l where l.daily_count_accepted is true and l.daily_limit_accepted is true and l.weekly_limit_accepted is true and l.rejected_by_rule is null group by l.customer_id, cast(l.timestamp as date)", nativeQuery = true)
+    List<DailyLoadTotal> getValidLoadDailyTotals();
+    @Query(value = "SELECT l.customer_id as customerId, cast(l.timestamp as timestamp) as time, l.load_amount as amount from load l where l.daily_count_accepted is true and l.daily_limit_accepted is true and l.weekly_limit_accepted is true and l.rejected_by_rule is null", nativeQuery = true)
+    List<AcceptedLoad> getValidLoads();
+    @Query(value = "SELECT coalesce(sum(l.load_amount), 0) as amount, count(*) as loadCount from load l where l.customer_id = :customerId and l.daily_count_accepted is true and l.daily_limit_accepted is true and l.weekly_limit_accepted is true and l.rejected_by_rule is null and timestamp >= :from and timestamp <= :to", nativeQuery = true)
+    LoadRangeTotal getValidLoadTotalBetween(String customerId, LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "SELECT coalesce(sum(l.load_amount), 0) as dailyAmount, count(*) as dailyCount, coalesce(sum(l.load_amount), 0) + (SELECT coalesce(sum(t.load_amount), 0) from customer_daily_totals t where t.customer_id = :customerId and t.load_date >= :weekStart and t.load_date < :day) as weeklyAmount from load l where l.customer_id = :customerId and l.daily_count_accepted is true and l.daily_limit_accepted is true and l.weekly_limit_accepted is true and l.rejected_by_rule is null and timestamp >= :dayStart and timestamp <= :to", nativeQuery = true)
+    LoadWindowTotals getValidLoadTotalsOfDayAfterDailyTotals(String customerId, LocalDate weekStart, LocalDate day, LocalDateTime dayStart, LocalDateTime to);
+    @Modifying
+    @Query(value = "MERGE INTO customer_daily_totals t USING (SELECT cast(:customerId as varchar(255)) as customer_id, cast(:day as date) as load_date) s ON t.customer_id = s.customer_id and t.load_date = s.load_date WHEN MATCHED THEN UPDATE SET load_amount = t.load_amount + :amount, load_count = t.load_count + :count WHEN NOT MATCHED THEN INSERT (customer_id, load_date, load_amount, load_count) VALUES (s.customer_id, s.load_date, :amount, :count)", nativeQuery = true)
+    void addValidLoadDailyTotal(String customerId, LocalDate day, BigDecimal amount, int count);
+    @Modifying
+    @Query(value = "DELETE from customer_daily_totals", nativeQuery = true)
+    void deleteValidLoadDailyTotals();
+    @Modifying
+    @Query(value = "INSERT into customer_daily_totals (customer_id, load_date, load_amount, load_count) SELECT l.customer_id, cast(l.timestamp as date), sum(l.load_amount), count(*) from load l where l.daily_count_accepted is true and l.daily_limit_accepted is true and l.weekly_limit_accepted is true and l.rejected_by_rule is null group by l.customer_id, cast(l.timestamp as date)", nativeQuery = true)
+    void insertValidLoadDailyTotals();
+    @Modifying
+    @Query(value = "DELETE from load where customer_id like concat(:prefix, '%')", nativeQuery = true)
+    void deleteByCustomerIdPrefix(String prefix);
+    @Modifying
+    @Query(value = "DELETE from customer_daily_totals where customer_id like concat(:prefix, '%')", nativeQuery = true)
+    void deleteValidLoadDailyTotalsByCustomerIdPrefix(String prefix);
+    @Modifying
+    @Query(value = "DELETE from customer_daily_totals where load_date < :day", nativeQuery = true)
+    void deleteValidLoadDailyTotalsBefore(LocalDate day);
+
+    @Query(value = "SELECT max(l.timestamp) from load l", nativeQuery = true)
+    LocalDateTime getLatestLoadTime();
+    @Query(value = "SELECT * from load l where l.timestamp < :before order by l.timestamp, l.id limit :limit", nativeQuery = true)
+    List<LoadEntity> findLoadsBefore(LocalDateTime before, int limit);
+    @Modifying
+    @Query(value = "DELETE from load where id in (:ids)", nativeQuery = true)
+    void deleteLoads(Collection<Long> ids);
 
     List<LoadEntity> findAllByCustomerIdOrderByTimeDesc(String customerId);
 
     Optional<LoadEntity> findByCustomerIdAndLoadId(String customerId, String loadId);
+
+    Stream<LoadSummary> streamAllBy();
+
+    List<LoadSummary> findAllByCustomerIdInAndLoadIdIn(Collection<String> customerIds, Collection<String> loadIds);
 }
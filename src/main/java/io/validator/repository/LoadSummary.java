@@ -0,0 +1,20 @@
+package io.validator.repository;
+
+public interface LoadSummary {
+
+    String getCustomerId();
+
+    String getLoadId();
+
+    boolean isDailyCountAccepted();
+
+    boolean isDailyLimitAccepted();
+
+    boolean isWeeklyLimitAccepted();
+
+    String getRejectedByRule();
+
+    default boolean isAccepted() {
+        return isDailyCountAccepted() && isDailyLimitAccepted() && isWeeklyLimitAccepted() && getRejectedByRule() == null;
+    }
+}
@@ -0,0 +1,12 @@
+package io.validator.repository;
+
+import java.math.BigDecimal;
+
+public interface LoadWindowTotals {
+
+    BigDecimal getDailyAmount();
+
+    long getDailyCount();
+
+    BigDecimal getWeeklyAmount();
+}
@@ -5,27 +5,56 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.validator.dto.LoadRequest;
 import io.validator.dto.LoadResponse;
 import io.validator.entity.LoadEntity;
-import io.validator.repository.LoadRepository;
+import io.validator.money.Money;
+import io.validator.service.async.AsyncWorkers;
+import io.validator.service.decision.DecisionLog;
+import io.validator.service.idempotency.LoadIdempotency;
+import io.validator.service.idempotency.LoadIdempotency.LoadKey;
+import io.validator.service.lock.CustomerLocks;
+import io.validator.service.metrics.ValidationMetrics;
+import io.validator.service.metrics.ValidationMetrics.Outcome;
+import io.validator.service.metrics.ValidationMetrics.Stage;
+import io.validator.service.ndjson.LoadRequestReader;
+import io.validator.service.ndjson.LoadResponseWriter;
+import io.validator.service.partition.CustomerPartitions;
+import io.validator.service.partition.CustomerQueueFullException;
+import io.validator.service.persistence.LoadWriter;
+import io.validator.service.rule.LimitPlan;
+import io.validator.service.rule.LimitRule;
+import io.validator.service.rule.Metric;
+import io.validator.service.rule.Scope;
+import io.validator.service.shard.ShardCoordinator;
+import io.validator.service.window.AtomicLoadWindows;
+import io.validator.service.window.LoadWindows;
+import io.validator.service.window.WindowAggregate;
+import io.validator.service.window.WindowTotals;
+import io.validator.service.window.WindowType;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
-import java.time.DayOfWeek;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 
 @Service
@@ -34,37 +63,53 @@ import java.util.concurrent.TimeUnit;
 @Data
 public class ValidationService {
 
-    private final LoadRepository loadRepository;
     private final ObjectMapper objectMapper;
-    private final RedissonClient redissonClient;
-    @Value("${validation.limit.daily}")
-    private BigDecimal dailyLimit;
-    @Value("${validation.limit.weekly}")
-    private BigDecimal weeklyLimit;
-    @Value("${validation.limit.daily.count}")
+    private final CustomerLocks customerLocks;
+    private final LoadWindows loadWindows;
+    private final CustomerPartitions customerPartitions;
+    private final LoadWriter loadWriter;
+    private final LoadIdempotency loadIdempotency;
+    private final ValidationMetrics validationMetrics;
+    private final AsyncWorkers asyncWorkers;
+    private final DecisionLog decisionLog;
+    private final ShardCoordinator shardCoordinator;
+    private final AtomicLong asyncLockOwners = new AtomicLong();
+    private long dailyLimitCents;
+    private long weeklyLimitCents;
     private int dailyCountLimit;
+    private List<LimitRule> limitRules = List.of();
+    private volatile LimitPlan limitPlan = LimitPlan.compile(List.of());
+    @Value("${validation.file.window}")
+    private int fileWindow;
+    private boolean actorMode;
 
     public LoadResponse validate(LoadRequest loadRequest) {
+        return validate(loadRequest, null);
+    }
+
+    /**
+     * Validation of a request whose amount was already parsed to cents, null parses loadAmount.
+     */
+    private LoadResponse validate(LoadRequest loadRequest, Long loadAmountCents) {
+        long start = System.nanoTime();
+        if (actorMode) {
+            try {
+                return Futures.join(customerPartitions.trySubmit(loadRequest.getCustomerId(), () -> validateOwned(loadRequest, loadAmountCents, start)));
+            } catch (CustomerQueueFullException e) {
+                log.error("customer queue is full for request {}", loadRequest);
+                validationMetrics.outcome(Outcome.QUEUE_FULL, start);
+                throw e;
+            }
+        }
         String customerId = loadRequest.getCustomerId();
-        RLock customerLock = redissonClient.getLock("customer_lock_" + customerId);
+        boolean locked = false;
         try {
-            if (customerLock.tryLock(10, TimeUnit.SECONDS)) {
-                Optional<LoadEntity> loadEntity = loadRepository.findByCustomerIdAndLoadId(loadRequest.getCustomerId(), loadRequest.getId());
-
-                return loadEntity.map(e -> LoadResponse.builder()
-                                .id(loadRequest.getId())
-                                .customerId(loadRequest.getCustomerId())
-                                .accepted(e.isDailyCountAccepted() && e.isDailyLimitAccepted() && e.isWeeklyLimitAccepted())
-                                .build())
-                        .orElseGet(() -> {
-                                    LoadEntity entity = new LoadEntity(loadRequest);
-                                    LoadResponse loadResponse = validateEntity(entity);
-                                    loadRepository.save(entity);
-                                    return loadResponse;
-                                }
-                        );
+            locked = lock(customerId);
+            if (locked) {
+                return validateOwned(loadRequest, loadAmountCents, start);
             } else {
                 log.error("error with getting lock for request {}", loadRequest);
+                validationMetrics.outcome(Outcome.LOCK_TIMEOUT, start);
                 return LoadResponse.builder()
                         .id(loadRequest.getId())
                         .customerId(loadRequest.getCustomerId())
@@ -73,83 +118,457 @@ public class ValidationService {
             }
         } catch (InterruptedException e) {
             log.error("error with getting lock for request {}", loadRequest, e);
+            validationMetrics.outcome(Outcome.LOCK_TIMEOUT, start);
             return LoadResponse.builder()
                     .id(loadRequest.getId())
                     .customerId(loadRequest.getCustomerId())
                     .accepted(false)
                     .build();
         } finally {
-            customerLock.unlock();
+            if (locked) {
+                customerLocks.unlock(customerId);
+                validationMetrics.lockReleased();
+            }
         }
     }
 
+    /**
+     * Same results as validate without blocking the caller: the customer lock is taken with the async lock API,
+     * dedup and window checks run on the async workers and the save completes with the writer batch.
+     * In actor mode the validation runs on the customer lane, with local locks it runs validate on a worker.
+     */
+    public CompletableFuture<LoadResponse> validateAsync(LoadRequest loadRequest) {
+        long start = System.nanoTime();
+        String customerId = loadRequest.getCustomerId();
+        if (actorMode) {
+            try {
+                return customerPartitions.trySubmit(customerId, () -> validateOwned(loadRequest, null, start));
+            } catch (CustomerQueueFullException e) {
+                log.error("customer queue is full for request {}", loadRequest);
+                validationMetrics.outcome(Outcome.QUEUE_FULL, start);
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (!customerLocks.supportsAsync()) {
+            return asyncWorkers.supply(() -> validate(loadRequest));
+        }
+        // negative owner ids never clash with the thread ids of synchronous holders
+        long owner = asyncLockOwners.decrementAndGet();
+        long lockStart = System.nanoTime();
+        validationMetrics.lockWaiting();
+        return customerLocks.tryLockAsync(customerId, owner, 10, TimeUnit.SECONDS)
+                .handle((locked, e) -> {
+                    validationMetrics.lockDone(Boolean.TRUE.equals(locked));
+                    validationMetrics.stage(Stage.LOCK, lockStart);
+                    if (e != null) {
+                        log.error("error with getting lock for request {}", loadRequest, e);
+                    }
+                    return Boolean.TRUE.equals(locked);
+                })
+                .thenCompose(locked -> {
+                    if (!locked) {
+                        log.error("error with getting lock for request {}", loadRequest);
+                        validationMetrics.outcome(Outcome.LOCK_TIMEOUT, start);
+                        return CompletableFuture.completedFuture(LoadResponse.builder()
+                                .id(loadRequest.getId())
+                                .customerId(loadRequest.getCustomerId())
+                                .accepted(false)
+                                .build());
+                    }
+                    return asyncWorkers.supply(() -> decide(loadRequest, null, start))
+                            .thenCompose(decision -> decision.entity() == null
+                                    ? CompletableFuture.completedFuture(decision)
+                                    : saveAsync(decision.entity()).thenApply(saved -> decision))
+                            .thenApply(decision -> complete(decision, start))
+                            .whenComplete((response, e) -> customerLocks.unlockAsync(customerId, owner)
+                                    .whenComplete((unlocked, unlockError) -> {
+                                        validationMetrics.lockReleased();
+                                        if (unlockError != null) {
+                                            log.error("error while releasing lock of customer {}", customerId, unlockError);
+                                        }
+                                    }));
+                });
+    }
 
-    public String validateFile(MultipartFile file) {
-        StringBuilder stringBuilder = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                try {
-                    LoadRequest loadRequest = objectMapper.readValue(line, LoadRequest.class);
-                    LoadResponse response = validate(loadRequest);
-                    stringBuilder.append(objectMapper.writeValueAsString(response));
-                    stringBuilder.append("\n");
-                } catch (JsonProcessingException e) {
-                    log.error("error while parsing from file, loadRequest = {}", line);
+    /**
+     * Validation of a load whose customer is owned by the caller, through the customer lock or the customer lane.
+     * On a lane the save is awaited like under a lock: the next load of the customer is decided on the db or on
+     * windows updated once the save is done, and concurrent lanes share a writer batch. Only atomic windows, which
+     * already counted the load, hand the save off.
+     */
+    private LoadResponse validateOwned(LoadRequest loadRequest, Long loadAmountCents, long start) {
+        Decision decision = decide(loadRequest, loadAmountCents, start);
+        if (decision.entity() != null) {
+            long stageStart = System.nanoTime();
+            save(List.of(decision.entity()));
+            validationMetrics.stage(Stage.SAVE, stageStart);
+        }
+        return complete(decision, start);
+    }
+
+    private Decision decide(LoadRequest loadRequest, Long loadAmountCents, long start) {
+        long stageStart = System.nanoTime();
+        Optional<LoadResponse> previous = loadIdempotency.findPrevious(loadRequest.getCustomerId(), loadRequest.getId());
+        validationMetrics.stage(Stage.DEDUP, stageStart);
+        if (previous.isPresent()) {
+            validationMetrics.outcome(Outcome.DUPLICATE, start);
+            return new Decision(null, previous.get());
+        }
+        LoadEntity entity = loadAmountCents == null ? new LoadEntity(loadRequest) : new LoadEntity(loadRequest, loadAmountCents);
+        return validateEntity(entity, List.of(), start);
+    }
+
+    /**
+     * Publishes a decision once its load is saved, duplicates have nothing to publish.
+     */
+    private LoadResponse complete(Decision decision, long start) {
+        LoadResponse loadResponse = decision.response();
+        if (decision.entity() == null) {
+            return loadResponse;
+        }
+        if (loadResponse.isAccepted()) {
+            loadWindows.accepted(decision.entity());
+        }
+        loadIdempotency.remember(loadResponse);
+        validationMetrics.outcome(loadResponse.isAccepted() ? Outcome.ACCEPTED : Outcome.REJECTED, start);
+        return loadResponse;
+    }
+
+    /**
+     * Validates many loads with the same results as validate called for each of them in list order.
+     * Each lock is taken once, in CustomerLocks.lockKey order so concurrent batches cannot deadlock,
+     * duplicates are resolved with one query and the new loads are saved as one writer batch.
+     * In actor mode every customer group runs on its lane instead of under a lock.
+     */
+    public List<LoadResponse> validateBatch(List<LoadRequest> loadRequests) {
+        long start = System.nanoTime();
+        LoadResponse[] responses = new LoadResponse[loadRequests.size()];
+        Map<String, List<Integer>> customers = new TreeMap<>();
+        for (int i = 0; i < loadRequests.size(); i++) {
+            customers.computeIfAbsent(loadRequests.get(i).getCustomerId(), id -> new ArrayList<>()).add(i);
+        }
+        if (actorMode) {
+            validateBatchOnLanes(loadRequests, customers, responses, start);
+            return Arrays.asList(responses);
+        }
+        Map<String, List<String>> locks = new TreeMap<>();
+        customers.keySet().forEach(customerId -> locks.computeIfAbsent(customerLocks.lockKey(customerId), key -> new ArrayList<>()).add(customerId));
+        List<String> lockedKeys = new ArrayList<>();
+        List<String> locked = new ArrayList<>();
+        try {
+            for (List<String> lockCustomers : locks.values()) {
+                if (!Thread.currentThread().isInterrupted() && lockForBatch(lockCustomers.get(0))) {
+                    lockedKeys.add(lockCustomers.get(0));
+                    locked.addAll(lockCustomers);
+                    continue;
+                }
+                for (String customerId : lockCustomers) {
+                    for (int i : customers.get(customerId)) {
+                        LoadRequest loadRequest = loadRequests.get(i);
+                        log.error("error with getting lock for request {}", loadRequest);
+                        validationMetrics.outcome(Outcome.LOCK_TIMEOUT, start);
+                        responses[i] = LoadResponse.builder()
+                                .id(loadRequest.getId())
+                                .customerId(loadRequest.getCustomerId())
+                                .accepted(false)
+                                .build();
+                    }
+                }
+            }
+            validateBatchOwned(loadRequests, customers, locked, responses, start);
+            return Arrays.asList(responses);
+        } finally {
+            for (String customerId : lockedKeys) {
+                customerLocks.unlock(customerId);
+                validationMetrics.lockReleased();
+            }
+        }
+    }
+
+    /**
+     * Submits every customer group to its lane, a group rejected by a full lane fails the request after the
+     * submitted groups are done, a retry then gets their responses back as duplicates.
+     */
+    private void validateBatchOnLanes(List<LoadRequest> loadRequests, Map<String, List<Integer>> customers, LoadResponse[] responses, long start) {
+        List<CompletableFuture<Void>> submitted = new ArrayList<>();
+        CustomerQueueFullException rejected = null;
+        for (Map.Entry<String, List<Integer>> customer : customers.entrySet()) {
+            try {
+                submitted.add(customerPartitions.trySubmit(customer.getKey(), () -> {
+                    validateBatchOwned(loadRequests, customers, List.of(customer.getKey()), responses, start);
+                    return null;
+                }));
+            } catch (CustomerQueueFullException e) {
+                log.error("customer queue is full for {} loads of customer {}", customer.getValue().size(), customer.getKey());
+                customer.getValue().forEach(i -> validationMetrics.outcome(Outcome.QUEUE_FULL, start));
+                rejected = e;
+            }
+        }
+        submitted.forEach(Futures::join);
+        if (rejected != null) {
+            throw rejected;
+        }
+    }
+
+    private void validateBatchOwned(List<LoadRequest> loadRequests, Map<String, List<Integer>> customers, Collection<String> owned,
+                                    LoadResponse[] responses, long start) {
+        long stageStart = System.nanoTime();
+        List<LoadKey> keys = new ArrayList<>();
+        owned.forEach(customerId -> customers.get(customerId)
+                .forEach(i -> keys.add(new LoadKey(customerId, loadRequests.get(i).getId()))));
+        Map<LoadKey, LoadResponse> previous = loadIdempotency.findAllPrevious(keys);
+        validationMetrics.stage(Stage.DEDUP, stageStart);
+
+        List<LoadEntity> entities = new ArrayList<>();
+        List<LoadResponse> created = new ArrayList<>();
+        for (String customerId : owned) {
+            List<LoadEntity> accepted = new ArrayList<>();
+            Map<String, LoadResponse> batchResponses = new HashMap<>();
+            for (int i : customers.get(customerId)) {
+                LoadRequest loadRequest = loadRequests.get(i);
+                LoadResponse response = batchResponses.getOrDefault(loadRequest.getId(), previous.get(new LoadKey(customerId, loadRequest.getId())));
+                if (response != null) {
+                    validationMetrics.outcome(Outcome.DUPLICATE, start);
+                    responses[i] = response;
+                    continue;
                 }
+                LoadEntity entity = new LoadEntity(loadRequest);
+                Decision decision = validateEntity(entity, accepted, start);
+                response = decision.response();
+                if (decision.entity() == null) {
+                    batchResponses.put(loadRequest.getId(), response);
+                    responses[i] = response;
+                    continue;
+                }
+                if (response.isAccepted()) {
+                    accepted.add(entity);
+                }
+                batchResponses.put(loadRequest.getId(), response);
+                entities.add(entity);
+                created.add(response);
+                responses[i] = response;
             }
+        }
+
+        stageStart = System.nanoTime();
+        save(entities);
+        validationMetrics.stage(Stage.SAVE, stageStart);
+        for (int i = 0; i < entities.size(); i++) {
+            LoadResponse response = created.get(i);
+            if (response.isAccepted()) {
+                loadWindows.accepted(entities.get(i));
+            }
+            loadIdempotency.remember(response);
+            validationMetrics.outcome(response.isAccepted() ? Outcome.ACCEPTED : Outcome.REJECTED, start);
+        }
+    }
+
+    /**
+     * Windows that count loads atomically are the record of the decisions, the db is then an audit log
+     * written in the background.
+     */
+    private void save(List<LoadEntity> entities) {
+        entities.forEach(entity -> shardCoordinator.requireServed(entity.getCustomerId()));
+        if (!(loadWindows instanceof AtomicLoadWindows)) {
+            loadWriter.saveAll(entities);
+            return;
+        }
+        for (LoadEntity entity : entities) {
+            loadWriter.saveAsync(entity).exceptionally(e -> {
+                log.error("error while saving load {} of customer {}", entity.getLoadId(), entity.getCustomerId(), e);
+                return null;
+            });
+        }
+    }
+
+    private CompletableFuture<?> saveAsync(LoadEntity entity) {
+        if (loadWindows instanceof AtomicLoadWindows) {
+            save(List.of(entity));
+            return CompletableFuture.completedFuture(entity);
+        }
+        shardCoordinator.requireServed(entity.getCustomerId());
+        long start = System.nanoTime();
+        return loadWriter.saveAsync(entity).whenComplete((saved, e) -> validationMetrics.stage(Stage.SAVE, start));
+    }
+
+    private boolean lockForBatch(String customerId) {
+        try {
+            return lock(customerId);
+        } catch (InterruptedException e) {
+            log.error("interrupted while getting lock for customer {}", customerId, e);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean lock(String customerId) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean locked = false;
+        validationMetrics.lockWaiting();
+        try {
+            locked = customerLocks.tryLock(customerId, 10, TimeUnit.SECONDS);
+            return locked;
+        } finally {
+            validationMetrics.lockDone(locked);
+            validationMetrics.stage(Stage.LOCK, start);
+        }
+    }
+
+    @Value("${validation.execution.mode}")
+    public void setExecutionMode(String executionMode) {
+        this.actorMode = "actor".equals(executionMode);
+    }
+
+    @Value("${validation.limit.daily}")
+    public void setDailyLimit(BigDecimal dailyLimit) {
+        this.dailyLimitCents = Money.toCents(dailyLimit);
+        this.limitPlan = compileLimitPlan(limitRules);
+    }
+
+    @Value("${validation.limit.weekly}")
+    public void setWeeklyLimit(BigDecimal weeklyLimit) {
+        this.weeklyLimitCents = Money.toCents(weeklyLimit);
+        this.limitPlan = compileLimitPlan(limitRules);
+    }
+
+    @Value("${validation.limit.daily.count}")
+    public void setDailyCountLimit(int dailyCountLimit) {
+        this.dailyCountLimit = dailyCountLimit;
+        this.limitPlan = compileLimitPlan(limitRules);
+    }
+
+    @Value("${validation.limit.rules}")
+    public void setLimitRules(String limitRules) {
+        List<LimitRule> rules = LimitRule.parseAll(limitRules);
+        this.limitPlan = compileLimitPlan(rules);
+        this.limitRules = rules;
+    }
+
+    public LimitPlan getLimitPlan() {
+        return limitPlan;
+    }
+
+    /**
+     * The daily, weekly and count limits are the first three rules, validation.limit.rules adds the others.
+     */
+    private LimitPlan compileLimitPlan(List<LimitRule> limitRules) {
+        List<LimitRule> rules = new ArrayList<>();
+        rules.add(new LimitRule(Scope.CUSTOMER, WindowType.DAY, Metric.AMOUNT, dailyLimitCents));
+        rules.add(new LimitRule(Scope.CUSTOMER, WindowType.WEEK, Metric.AMOUNT, weeklyLimitCents));
+        rules.add(new LimitRule(Scope.CUSTOMER, WindowType.DAY, Metric.COUNT, dailyCountLimit));
+        rules.addAll(limitRules);
+        LimitPlan plan = LimitPlan.compile(rules);
+        if (plan.hasRuleChecks() && loadWindows instanceof AtomicLoadWindows) {
+            throw new IllegalStateException("validation.limit.rules are not supported with atomic windows, the script only checks the daily and weekly limits");
+        }
+        if (!plan.getWindows().isEmpty() && !loadWindows.supportsAggregates()) {
+            throw new IllegalStateException("limit rules on " + plan.getWindows() + " windows need validation.window.mode=timeline or database");
+        }
+        return plan;
+    }
+
+    public void reload() {
+        loadWriter.flush();
+        loadWindows.reload();
+        loadIdempotency.reload();
+    }
+
+    /**
+     * Drops the windows and idempotency state of the customers with the prefix, whose loads were deleted.
+     */
+    public void forget(String customerIdPrefix) {
+        loadWindows.forget(customerIdPrefix);
+        loadIdempotency.forget(customerIdPrefix);
+    }
+
+    public String validateFile(MultipartFile file) {
+        StringWriter writer = new StringWriter();
+        try {
+            validateFile(file.getInputStream(), writer);
         } catch (IOException e) {
             return "";
         }
-        return stringBuilder.toString();
+        return writer.toString();
     }
 
-    private LoadResponse validateEntity(LoadEntity entity) {
-        boolean isDailyLimitValid = validateDailyLimit(entity);
-        boolean isWeeklyLimitValid = validateWeeklyLimit(entity);
-        boolean isDailyCountLimitValid = validateDailyCountLimit(entity);
-        boolean isAcceptable = isDailyLimitValid && isWeeklyLimitValid && isDailyCountLimitValid;
-        entity.setDailyCountAccepted(isDailyCountLimitValid);
-        entity.setDailyLimitAccepted(isDailyLimitValid);
-        entity.setWeeklyLimitAccepted(isWeeklyLimitValid);
+    public void validateFile(InputStream inputStream, Writer writer) throws IOException {
+        Deque<CompletableFuture<LoadResponse>> pending = new ArrayDeque<>();
+        try (LoadRequestReader requests = new LoadRequestReader(objectMapper.getFactory(), inputStream);
+             LoadResponseWriter responses = new LoadResponseWriter(objectMapper.getFactory(), writer)) {
+            while (requests.next()) {
+                long start = System.nanoTime();
+                try {
+                    LoadRequest loadRequest = requests.request();
+                    long loadAmountCents = requests.loadAmountCents();
+                    pending.add(customerPartitions.submit(loadRequest.getCustomerId(), actorMode
+                            ? () -> validateOwned(loadRequest, loadAmountCents, start)
+                            : () -> validate(loadRequest, loadAmountCents)));
+                } catch (JsonProcessingException e) {
+                    log.error("error while parsing from file, loadRequest = {}", requests.line());
+                    validationMetrics.outcome(Outcome.PARSE_ERROR, start);
+                }
+                boolean written = false;
+                while (!pending.isEmpty() && (pending.size() >= fileWindow || pending.peek().isDone())) {
+                    writeResponse(pending.poll(), responses);
+                    written = true;
+                }
+                if (written) {
+                    responses.flush();
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeResponse(pending.poll(), responses);
+            }
+            responses.flush();
+        }
+    }
 
-        return LoadResponse.builder().id(entity.getLoadId()).customerId(entity.getCustomerId()).accepted(isAcceptable).build();
+    private void writeResponse(CompletableFuture<LoadResponse> future, LoadResponseWriter responses) throws IOException {
+        LoadResponse response = Futures.join(future);
+        long start = System.nanoTime();
+        responses.write(response);
+        validationMetrics.stage(Stage.SERIALIZE, start);
     }
 
-    public boolean validateDailyLimit(LoadEntity loadRequest) {
-        LocalDateTime dayStart = LocalDateTime.of(LocalDate.from(loadRequest.getTime()), LocalTime.MIDNIGHT);
-        BigDecimal loadedDailyAmount = loadRepository.getValidLoadAmountBetweenDates(loadRequest.getCustomerId(), dayStart, loadRequest.getTime());
-        boolean accepted = loadRequest.getLoadAmount().add(loadedDailyAmount).compareTo(dailyLimit) <= 0;
-        if (accepted) {
-            log.info("{} daily limit accepted for user {} and amount {}", loadRequest.getLoadId(), loadRequest.getCustomerId(), loadRequest.getLoadAmount());
+    /**
+     * Decides a new load, with atomic windows a load already counted by the script, e.g. a retry that reached
+     * another instance first, is a duplicate with its first decision and nothing to save.
+     */
+    private Decision validateEntity(LoadEntity entity, List<LoadEntity> unsaved, long start) {
+        long stageStart = System.nanoTime();
+        LimitPlan plan = limitPlan;
+        WindowTotals totals;
+        if (loadWindows instanceof AtomicLoadWindows atomicLoadWindows) {
+            AtomicLoadWindows.Check check = atomicLoadWindows.checkAndAdd(entity, plan.getDailyAmountLimit(), (int) plan.getDailyCountLimit(), plan.getWeeklyAmountLimit());
+            if (check.repeated()) {
+                validationMetrics.stage(Stage.WINDOWS, stageStart);
+                validationMetrics.outcome(Outcome.DUPLICATE, start);
+                return new Decision(null, LoadResponse.builder().id(entity.getLoadId()).customerId(entity.getCustomerId()).accepted(check.added()).build());
+            }
+            totals = check.totals();
         } else {
-            log.warn("{} daily limit not accepted for user {} and amount {}, remaining limit is {}", loadRequest.getLoadId(), loadRequest.getCustomerId(), loadRequest.getLoadAmount(), dailyLimit.subtract(loadedDailyAmount));
+            totals = loadWindows.totals(entity.getCustomerId(), entity.getTime(), unsaved);
         }
+        LoadResponse response = evaluate(plan, entity, totals, window -> loadWindows.aggregate(entity.getCustomerId(), window, entity.getTime(), unsaved));
+        validationMetrics.stage(Stage.WINDOWS, stageStart);
+        return new Decision(entity, response);
+    }
 
-        return accepted;
+    /**
+     * Applies the limit rules to a load given the accepted totals of its windows, records the result on the entity.
+     */
+    public LoadResponse evaluate(LoadEntity entity, WindowTotals totals, Function<WindowType, WindowAggregate> aggregates) {
+        return evaluate(limitPlan, entity, totals, aggregates);
     }
 
-    public boolean validateWeeklyLimit(LoadEntity loadRequest) {
-        LocalDateTime dayStartOfTheWeek = LocalDateTime.of(LocalDate.from(loadRequest.getTime()), LocalTime.MIDNIGHT).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        BigDecimal loadedWeeklyAmount = loadRepository.getValidLoadAmountBetweenDates(loadRequest.getCustomerId(), dayStartOfTheWeek, loadRequest.getTime());
-        boolean accepted = loadRequest.getLoadAmount().add(loadedWeeklyAmount).compareTo(weeklyLimit) <= 0;
-        if (accepted) {
-            log.info("{} weekly limit accepted for user {} and amount {}", loadRequest.getLoadId(), loadRequest.getCustomerId(), loadRequest.getLoadAmount());
-        } else {
-            log.warn("{} weekly limit not accepted for user {} and amount {}, remaining limit is {}", loadRequest.getLoadId(), loadRequest.getCustomerId(), loadRequest.getLoadAmount(), weeklyLimit.subtract(loadedWeeklyAmount));
+    private LoadResponse evaluate(LimitPlan plan, LoadEntity entity, WindowTotals totals, Function<WindowType, WindowAggregate> aggregates) {
+        boolean accepted = plan.evaluate(entity, totals, aggregates);
+        if (decisionLog.isEnabled(accepted)) {
+            decisionLog.record(plan, entity, totals, accepted);
         }
-        return accepted;
+        return LoadResponse.builder().id(entity.getLoadId()).customerId(entity.getCustomerId()).accepted(accepted).build();
     }
 
-    public boolean validateDailyCountLimit(LoadEntity loadRequest) {
-        LocalDateTime dayStart = LocalDateTime.of(LocalDate.from(loadRequest.getTime()), LocalTime.MIDNIGHT);
-        int loadedDailyAmount = loadRepository.getValidLoadCountBetweenDates(loadRequest.getCustomerId(), dayStart, loadRequest.getTime());
-        boolean accepted = loadedDailyAmount < dailyCountLimit;
-        if (accepted) {
-            log.info("{} daily count limit accepted for user {}", loadRequest.getLoadId(), loadRequest.getCustomerId());
-        } else {
-            log.warn("{} daily count limit not accepted for user {}", loadRequest.getLoadId(), loadRequest.getCustomerId());
-        }
-        return accepted;
+    private record Decision(LoadEntity entity, LoadResponse response) {
     }
 }
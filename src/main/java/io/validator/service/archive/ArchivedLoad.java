@@ -0,0 +1,31 @@
+package io.validator.service.archive;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.validator.entity.LoadEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of a cold tier file, the load row with its decision.
+ */
+public record ArchivedLoad(
+        long id,
+        @JsonProperty("load_id") String loadId,
+        @JsonProperty("customer_id") String customerId,
+        @JsonProperty("load_amount_cents") long loadAmountCents,
+        @JsonFormat(shape = JsonFormat.Shape.STRING) LocalDateTime time,
+        @JsonProperty("daily_count_accepted") boolean dailyCountAccepted,
+        @JsonProperty("daily_limit_accepted") boolean dailyLimitAccepted,
+        @JsonProperty("weekly_limit_accepted") boolean weeklyLimitAccepted,
+        @JsonProperty("rejected_by_rule") String rejectedByRule) {
+
+    public static ArchivedLoad of(LoadEntity entity) {
+        return new ArchivedLoad(entity.getId(), entity.getLoadId(), entity.getCustomerId(), entity.getLoadAmountCents(), entity.getTime(),
+                entity.isDailyCountAccepted(), entity.isDailyLimitAccepted(), entity.isWeeklyLimitAccepted(), entity.getRejectedByRule());
+    }
+
+    public LoadEntity toEntity() {
+        return new LoadEntity(id, loadId, customerId, loadAmountCents, time, dailyCountAccepted, dailyLimitAccepted, weeklyLimitAccepted, rejectedByRule);
+    }
+}
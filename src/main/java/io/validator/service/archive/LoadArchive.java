@@ -0,0 +1,244 @@
+package io.validator.service.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.validator.entity.LoadEntity;
+import io.validator.repository.LoadRepository;
+import io.validator.service.ValidationService;
+import io.validator.service.window.WindowType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier of the load history. The load table is the hot tier: compaction moves loads older than the start of
+ * the longest limit window, or than validation.archive.dedup.horizon if that reaches further back, into gzip NDJSON
+ * files per ISO week and customer bucket (validation.archive.buckets) under validation.archive.dir, so the limit and
+ * dedup queries only see a bounded table and a customer lookup only reads the files of its bucket. The clock is the
+ * latest load time in the table, like the windows themselves. Each chunk is appended to the files as a new gzip
+ * member before its rows are deleted, a failure in between leaves copies in both tiers that readers drop by load
+ * row id. Duplicates of archived loads are decided again as new loads. Several instances have to share the
+ * directory, compaction then runs on one of them at a time under a Redis lease.
+ */
+@Component
+@Slf4j
+public class LoadArchive {
+
+    private static final String PREFIX = "loads-";
+    private static final String SUFFIX = ".ndjson.gz";
+    private static final String LEASE = "validation:archive:compaction";
+    private static final RedisScript<Long> RELEASE = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final LoadRepository loadRepository;
+    private final ValidationService validationService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Path dir;
+    private final Duration interval;
+    private final Duration dedupHorizon;
+    private final int chunkSize;
+    private final int buckets;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "load-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LoadArchive(LoadRepository loadRepository,
+                       ValidationService validationService,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       StringRedisTemplate redisTemplate,
+                       @Value("${validation.archive.enabled}") boolean enabled,
+                       @Value("${validation.archive.dir}") String dir,
+                       @Value("${validation.archive.interval}") Duration interval,
+                       @Value("${validation.archive.dedup.horizon}") Duration dedupHorizon,
+                       @Value("${validation.archive.chunk.size}") int chunkSize,
+                       @Value("${validation.archive.buckets}") int buckets) {
+        this.loadRepository = loadRepository;
+        this.validationService = validationService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.interval = interval;
+        this.dedupHorizon = dedupHorizon;
+        this.chunkSize = chunkSize;
+        this.buckets = buckets;
+        this.redisTemplate = redisTemplate;
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::compactQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Moves the loads before the retention cutoff to the cold tier, returns how many were moved, or 0 when another
+     * instance is compacting.
+     */
+    public long compact() throws IOException {
+        String owner = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LEASE, owner, interval))) {
+            log.info("archive compaction skipped, another instance is compacting");
+            return 0;
+        }
+        try {
+            return compactLeased();
+        } finally {
+            redisTemplate.execute(RELEASE, List.of(LEASE), owner);
+        }
+    }
+
+    private long compactLeased() throws IOException {
+        LocalDateTime latest = loadRepository.getLatestLoadTime();
+        if (latest == null) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = cutoff(latest);
+        Files.createDirectories(dir);
+        long moved = 0;
+        while (true) {
+            int count;
+            try {
+                count = transactionTemplate.execute(status -> moveChunk(cutoff));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            moved += count;
+            if (count < chunkSize) {
+                break;
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> loadRepository.deleteValidLoadDailyTotalsBefore(cutoff.toLocalDate()));
+        log.info("archived {} loads before {} in {} ms", moved, cutoff, System.currentTimeMillis() - start);
+        return moved;
+    }
+
+    /**
+     * Loads of a customer in the cold tier, in no particular order. Only the files of the customer's bucket are
+     * read and only lines holding its id are parsed.
+     */
+    public List<LoadEntity> find(String customerId) throws IOException {
+        List<LoadEntity> loads = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return loads;
+        }
+        String field = "\"customer_id\":" + objectMapper.writeValueAsString(customerId);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + bucketSuffix(customerId))) {
+            for (Path file : files) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.contains(field)) {
+                            continue;
+                        }
+                        ArchivedLoad load = objectMapper.readValue(line, ArchivedLoad.class);
+                        if (load.customerId().equals(customerId)) {
+                            loads.add(load.toEntity());
+                        }
+                    }
+                }
+            }
+        }
+        return loads;
+    }
+
+    LocalDateTime cutoff(LocalDateTime latest) {
+        Set<WindowType> windows = EnumSet.of(WindowType.DAY, WindowType.WEEK);
+        windows.addAll(validationService.getLimitPlan().getWindows());
+        LocalDateTime cutoff = latest.minus(dedupHorizon);
+        for (WindowType window : windows) {
+            LocalDateTime windowStart = window.start(latest);
+            if (windowStart.isBefore(cutoff)) {
+                cutoff = windowStart;
+            }
+        }
+        return cutoff;
+    }
+
+    private int moveChunk(LocalDateTime cutoff) {
+        List<LoadEntity> loads = loadRepository.findLoadsBefore(cutoff, chunkSize);
+        if (loads.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<LoadEntity>> files = new TreeMap<>();
+        loads.forEach(load -> files.computeIfAbsent(PREFIX + WindowType.WEEK.start(load.getTime()).toLocalDate() + bucketSuffix(load.getCustomerId()),
+                file -> new ArrayList<>()).add(load));
+        try {
+            for (Map.Entry<String, List<LoadEntity>> file : files.entrySet()) {
+                append(dir.resolve(file.getKey()), file.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        loadRepository.deleteLoads(loads.stream().map(LoadEntity::getId).toList());
+        return loads.size();
+    }
+
+    private void append(Path file, List<LoadEntity> loads) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)), StandardCharsets.UTF_8))) {
+            for (LoadEntity load : loads) {
+                writer.write(objectMapper.writeValueAsString(ArchivedLoad.of(load)));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private String bucketSuffix(String customerId) {
+        return ".b" + Math.floorMod(customerId.hashCode(), buckets) + SUFFIX;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            log.error("load archive compaction failed", e);
+        }
+    }
+}
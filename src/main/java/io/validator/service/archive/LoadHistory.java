@@ -0,0 +1,34 @@
+package io.validator.service.archive;
+
+import io.validator.entity.LoadEntity;
+import io.validator.repository.LoadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads of a customer across the hot table and the cold tier files.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoadHistory {
+
+    private final LoadRepository loadRepository;
+    private final LoadArchive loadArchive;
+
+    public List<LoadEntity> findAllByCustomerIdOrderByTimeDesc(String customerId) throws IOException {
+        List<LoadEntity> loads = loadRepository.findAllByCustomerIdOrderByTimeDesc(customerId);
+        Set<Long> ids = new HashSet<>();
+        loads.forEach(load -> ids.add(load.getId()));
+        loadArchive.find(customerId).stream()
+                .filter(load -> ids.add(load.getId()))
+                .forEach(loads::add);
+        loads.sort(Comparator.comparing(LoadEntity::getTime).reversed());
+        return loads;
+    }
+}
@@ -0,0 +1,41 @@
+package io.validator.service.async;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Small pool for the steps of async validations that may block on the db, dedup lookups and window queries,
+ * so they never run on Redis client or load writer threads. 0 workers means one per processor.
+ */
+@Component
+public class AsyncWorkers {
+
+    private final ExecutorService executor;
+
+    public AsyncWorkers(@Value("${validation.async.workers}") int workers) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), task -> {
+            Thread thread = new Thread(task, "async-validation-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    @PreDestroy
+    public void preDestroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
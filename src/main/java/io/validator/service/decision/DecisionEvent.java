@@ -0,0 +1,64 @@
+package io.validator.service.decision;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One slot of the decision ring, reused for every load published into it so recording a decision allocates nothing.
+ */
+@Getter
+public final class DecisionEvent {
+
+    static final int DAILY_LIMIT_ACCEPTED = 1;
+    static final int WEEKLY_LIMIT_ACCEPTED = 2;
+    static final int DAILY_COUNT_ACCEPTED = 4;
+    static final int ACCEPTED = 8;
+
+    private String loadId;
+    private String customerId;
+    private LocalDateTime time;
+    private long amount;
+    private long remainingDailyAmount;
+    private long remainingWeeklyAmount;
+    private long remainingDailyCount;
+    private int flags;
+    private String rejectedByRule;
+    long sequence;
+
+    void set(String loadId, String customerId, LocalDateTime time, long amount, long remainingDailyAmount, long remainingWeeklyAmount,
+             long remainingDailyCount, int flags, String rejectedByRule) {
+        this.loadId = loadId;
+        this.customerId = customerId;
+        this.time = time;
+        this.amount = amount;
+        this.remainingDailyAmount = remainingDailyAmount;
+        this.remainingWeeklyAmount = remainingWeeklyAmount;
+        this.remainingDailyCount = remainingDailyCount;
+        this.flags = flags;
+        this.rejectedByRule = rejectedByRule;
+    }
+
+    void clear() {
+        loadId = null;
+        customerId = null;
+        time = null;
+        rejectedByRule = null;
+    }
+
+    public boolean isAccepted() {
+        return (flags & ACCEPTED) != 0;
+    }
+
+    public boolean isDailyLimitAccepted() {
+        return (flags & DAILY_LIMIT_ACCEPTED) != 0;
+    }
+
+    public boolean isWeeklyLimitAccepted() {
+        return (flags & WEEKLY_LIMIT_ACCEPTED) != 0;
+    }
+
+    public boolean isDailyCountAccepted() {
+        return (flags & DAILY_COUNT_ACCEPTED) != 0;
+    }
+}
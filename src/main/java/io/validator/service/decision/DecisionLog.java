@@ -0,0 +1,218 @@
+package io.validator.service.decision;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.service.metrics.ValidationMetrics;
+import io.validator.service.rule.LimitPlan;
+import io.validator.service.window.WindowTotals;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One decision record per load with the three limit outcomes, the rejecting rule and the remaining limits.
+ * Validations publish into a lock-free ring and return, the decision-log thread drains it either to this logger
+ * (validation.decision.log=log, info for accepted and warn for rejected loads) or to a binary file
+ * (validation.decision.log=file). Callers check isEnabled first, which is a level check in log mode, so a
+ * disabled sink costs no allocation. When the ring is full the decision is dropped and counted.
+ */
+@Component
+@Slf4j
+public class DecisionLog {
+
+    public enum Mode {
+        OFF, LOG, FILE
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Mode mode;
+    private final DecisionRing ring;
+    private final Path file;
+    private final ValidationMetrics validationMetrics;
+    private final Thread drainer = new Thread(this::run, "decision-log");
+    private DataOutputStream out;
+    private volatile boolean running;
+
+    public DecisionLog(@Value("${validation.decision.log}") String mode,
+                       @Value("${validation.decision.buffer.size}") int bufferSize,
+                       @Value("${validation.decision.file}") String file,
+                       ValidationMetrics validationMetrics) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        if (this.mode == Mode.FILE && file.isBlank()) {
+            throw new IllegalStateException("validation.decision.log=file needs validation.decision.file");
+        }
+        this.ring = this.mode == Mode.OFF ? null : new DecisionRing(bufferSize);
+        this.file = file.isBlank() ? null : Path.of(file);
+        this.validationMetrics = validationMetrics;
+        drainer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void postConstruct() throws IOException {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        if (mode == Mode.FILE) {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        }
+        running = true;
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void preDestroy() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join();
+        if (out != null) {
+            out.close();
+        }
+    }
+
+    public boolean isEnabled(boolean accepted) {
+        return switch (mode) {
+            case OFF -> false;
+            case FILE -> true;
+            case LOG -> accepted ? log.isInfoEnabled() : log.isWarnEnabled();
+        };
+    }
+
+    public void record(LimitPlan plan, LoadEntity entity, WindowTotals totals, boolean accepted) {
+        DecisionEvent event = ring.claim();
+        if (event == null) {
+            validationMetrics.decisionDropped();
+            return;
+        }
+        event.set(entity.getLoadId(), entity.getCustomerId(), entity.getTime(), entity.getLoadAmountCents(),
+                plan.getDailyAmountLimit() - totals.getDailyAmount(),
+                plan.getWeeklyAmountLimit() - totals.getWeeklyAmount(),
+                plan.getDailyCountLimit() - totals.getDailyCount(),
+                flags(entity, accepted), entity.getRejectedByRule());
+        ring.publish(event);
+    }
+
+    /**
+     * Reads back a decision file written in file mode.
+     */
+    public static List<DecisionEvent> read(Path file) throws IOException {
+        List<DecisionEvent> events = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                String loadId;
+                try {
+                    loadId = in.readUTF();
+                } catch (EOFException e) {
+                    return events;
+                }
+                DecisionEvent event = new DecisionEvent();
+                String customerId = in.readUTF();
+                LocalDateTime time = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+                long amount = in.readLong();
+                long remainingDailyAmount = in.readLong();
+                long remainingWeeklyAmount = in.readLong();
+                long remainingDailyCount = in.readLong();
+                int flags = in.readByte();
+                String rejectedByRule = in.readUTF();
+                event.set(loadId, customerId, time, amount, remainingDailyAmount, remainingWeeklyAmount, remainingDailyCount,
+                        flags, rejectedByRule.isEmpty() ? null : rejectedByRule);
+                events.add(event);
+            }
+        }
+    }
+
+    private static int flags(LoadEntity entity, boolean accepted) {
+        return (entity.isDailyLimitAccepted() ? DecisionEvent.DAILY_LIMIT_ACCEPTED : 0)
+                | (entity.isWeeklyLimitAccepted() ? DecisionEvent.WEEKLY_LIMIT_ACCEPTED : 0)
+                | (entity.isDailyCountAccepted() ? DecisionEvent.DAILY_COUNT_ACCEPTED : 0)
+                | (accepted ? DecisionEvent.ACCEPTED : 0);
+    }
+
+    private void run() {
+        while (true) {
+            DecisionEvent event = ring.poll();
+            if (event == null) {
+                if (!running) {
+                    break;
+                }
+                flush();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                if (mode == Mode.FILE) {
+                    write(event);
+                } else {
+                    log(event);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("decision of load {} could not be written", event.getLoadId(), e);
+            } finally {
+                ring.release(event);
+            }
+        }
+        flush();
+    }
+
+    private void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.error("decision file {} could not be flushed", file, e);
+            }
+        }
+    }
+
+    private void write(DecisionEvent event) throws IOException {
+        out.writeUTF(event.getLoadId());
+        out.writeUTF(event.getCustomerId());
+        out.writeLong(event.getTime().toEpochSecond(ZoneOffset.UTC));
+        out.writeLong(event.getAmount());
+        out.writeLong(event.getRemainingDailyAmount());
+        out.writeLong(event.getRemainingWeeklyAmount());
+        out.writeLong(event.getRemainingDailyCount());
+        out.writeByte(event.getFlags());
+        out.writeUTF(event.getRejectedByRule() == null ? "" : event.getRejectedByRule());
+    }
+
+    private static void log(DecisionEvent event) {
+        if (event.isAccepted()) {
+            log.info("{} accepted for user {} and amount {}, remaining daily limit {}, weekly limit {}, daily count {}",
+                    event.getLoadId(), event.getCustomerId(), Money.toBigDecimal(event.getAmount()),
+                    Money.toBigDecimal(event.getRemainingDailyAmount()), Money.toBigDecimal(event.getRemainingWeeklyAmount()), event.getRemainingDailyCount());
+        } else {
+            log.warn("{} not accepted for user {} and amount {}, daily limit {}, weekly limit {}, daily count {}, rule {}, remaining daily limit {}, weekly limit {}, daily count {}",
+                    event.getLoadId(), event.getCustomerId(), Money.toBigDecimal(event.getAmount()),
+                    outcome(event.isDailyLimitAccepted()), outcome(event.isWeeklyLimitAccepted()), outcome(event.isDailyCountAccepted()),
+                    event.getRejectedByRule() == null ? "-" : event.getRejectedByRule(),
+                    Money.toBigDecimal(event.getRemainingDailyAmount()), Money.toBigDecimal(event.getRemainingWeeklyAmount()), event.getRemainingDailyCount());
+        }
+    }
+
+    private static String outcome(boolean accepted) {
+        return accepted ? "accepted" : "not accepted";
+    }
+}
@@ -0,0 +1,73 @@
+package io.validator.service.decision;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring of preallocated decision events with many producers and one consumer. A producer claims
+ * a slot with a CAS on the tail and publishes it by advancing the slot sequence, the consumer hands the slot back
+ * the same way. A full ring rejects the claim instead of waiting, so request threads never block on the sink.
+ */
+final class DecisionRing {
+
+    private final DecisionEvent[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    DecisionRing(int size) {
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        this.events = new DecisionEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new DecisionEvent();
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    /**
+     * Returns a free slot to fill and publish, or null when the ring is full.
+     */
+    DecisionEvent claim() {
+        long position = tail.get();
+        while (true) {
+            long available = sequences.get((int) position & mask) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    DecisionEvent event = events[(int) position & mask];
+                    event.sequence = position;
+                    return event;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return null;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    void publish(DecisionEvent event) {
+        sequences.lazySet((int) event.sequence & mask, event.sequence + 1);
+    }
+
+    /**
+     * Returns the next published event for the single consumer, or null when there is none yet.
+     */
+    DecisionEvent poll() {
+        int index = (int) head & mask;
+        return sequences.get(index) == head + 1 ? events[index] : null;
+    }
+
+    void release(DecisionEvent event) {
+        event.clear();
+        sequences.lazySet((int) head & mask, head + events.length);
+        head++;
+    }
+}
@@ -0,0 +1,172 @@
+package io.validator.service.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.validator.dto.LoadResponse;
+import io.validator.repository.LoadRepository;
+import io.validator.repository.LoadSummary;
+import io.validator.service.limit.DownstreamLimiters;
+import io.validator.service.limit.ResourceLimiter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Responses of already seen loads. A Bloom filter of every (customer_id, id) in the load table answers
+ * "definitely new" without a db lookup, otherwise the bounded response cache is checked before the table.
+ * The filter only knows loads saved through this instance, so it is off by default and must stay off when
+ * several instances write to the same table.
+ */
+@Component
+@Slf4j
+public class LoadIdempotency {
+
+    private final LoadRepository loadRepository;
+    private final ResourceLimiter dbLimiter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean bloomEnabled;
+    private final long bloomExpected;
+    private final double bloomFpp;
+    private final Cache<LoadKey, LoadResponse> responses;
+    private volatile BloomFilter seen;
+
+    public LoadIdempotency(LoadRepository loadRepository,
+                           PlatformTransactionManager transactionManager,
+                           DownstreamLimiters downstreamLimiters,
+                           @Value("${validation.idempotency.cache.size}") long cacheSize,
+                           @Value("${validation.idempotency.cache.ttl}") Duration cacheTtl,
+                           @Value("${validation.idempotency.bloom.enabled}") boolean bloomEnabled,
+                           @Value("${validation.idempotency.bloom.expected}") long bloomExpected,
+                           @Value("${validation.idempotency.bloom.fpp}") double bloomFpp) {
+        this.loadRepository = loadRepository;
+        this.dbLimiter = downstreamLimiters.getDb();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.bloomEnabled = bloomEnabled;
+        this.bloomExpected = bloomExpected;
+        this.bloomFpp = bloomFpp;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        reload();
+    }
+
+    public Optional<LoadResponse> findPrevious(String customerId, String loadId) {
+        if (bloomEnabled && !seen.mightContain(customerId, loadId)) {
+            return Optional.empty();
+        }
+        LoadKey key = new LoadKey(customerId, loadId);
+        LoadResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<LoadResponse> previous = dbLimiter.call(() -> loadRepository.findByCustomerIdAndLoadId(customerId, loadId))
+                .map(e -> LoadResponse.builder()
+                        .id(loadId)
+                        .customerId(customerId)
+                        .accepted(e.isAccepted())
+                        .build());
+        previous.ifPresent(response -> responses.put(key, response));
+        return previous;
+    }
+
+    /**
+     * Previous responses of many loads, the ones neither ruled out by the filter nor cached are read with one query.
+     */
+    public Map<LoadKey, LoadResponse> findAllPrevious(Collection<LoadKey> keys) {
+        Map<LoadKey, LoadResponse> previous = new HashMap<>();
+        Set<LoadKey> missing = new HashSet<>();
+        for (LoadKey key : keys) {
+            if (bloomEnabled && !seen.mightContain(key.customerId(), key.loadId())) {
+                continue;
+            }
+            LoadResponse cached = responses.getIfPresent(key);
+            if (cached != null) {
+                previous.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return previous;
+        }
+        Set<String> customerIds = new HashSet<>();
+        Set<String> loadIds = new HashSet<>();
+        missing.forEach(key -> {
+            customerIds.add(key.customerId());
+            loadIds.add(key.loadId());
+        });
+        dbLimiter.call(() -> loadRepository.findAllByCustomerIdInAndLoadIdIn(customerIds, loadIds)).forEach(load -> {
+            LoadKey key = new LoadKey(load.getCustomerId(), load.getLoadId());
+            if (missing.contains(key)) {
+                LoadResponse response = LoadResponse.builder()
+                        .id(load.getLoadId())
+                        .customerId(load.getCustomerId())
+                        .accepted(load.isAccepted())
+                        .build();
+                responses.put(key, response);
+                previous.put(key, response);
+            }
+        });
+        return previous;
+    }
+
+    public void remember(LoadResponse response) {
+        if (bloomEnabled) {
+            seen.put(response.getCustomerId(), response.getId());
+        }
+        responses.put(new LoadKey(response.getCustomerId(), response.getId()), response);
+    }
+
+    /**
+     * Drops the cached responses of the customers with the prefix, the Bloom filter keeps them as false positives.
+     */
+    public void forget(String customerIdPrefix) {
+        responses.asMap().keySet().removeIf(key -> key.customerId().startsWith(customerIdPrefix));
+    }
+
+    public void reload() {
+        responses.invalidateAll();
+        if (!bloomEnabled) {
+            return;
+        }
+        BloomFilter filter = new BloomFilter(bloomExpected, bloomFpp);
+        AtomicLong count = new AtomicLong();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<LoadSummary> loads = loadRepository.streamAllBy()) {
+                loads.forEach(load -> {
+                    filter.put(load.getCustomerId(), load.getLoadId());
+                    responses.put(new LoadKey(load.getCustomerId(), load.getLoadId()), LoadResponse.builder()
+                            .id(load.getLoadId())
+                            .customerId(load.getCustomerId())
+                            .accepted(load.isAccepted())
+                            .build());
+                    count.incrementAndGet();
+                });
+            }
+        });
+        seen = filter;
+        log.info("idempotency filter loaded with {} loads", count.get());
+    }
+
+    public record LoadKey(String customerId, String loadId) {
+    }
+}
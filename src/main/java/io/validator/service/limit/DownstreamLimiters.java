@@ -0,0 +1,23 @@
+package io.validator.service.limit;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Concurrency bounds for the db and Redis calls made on request threads. With virtual threads nothing else
+ * caps how many requests reach them at once, the bounds keep that within the connection pools.
+ */
+@Component
+@Getter
+public class DownstreamLimiters {
+
+    private final ResourceLimiter db;
+    private final ResourceLimiter redis;
+
+    public DownstreamLimiters(@Value("${validation.concurrency.db}") int db,
+                              @Value("${validation.concurrency.redis}") int redis) {
+        this.db = new ResourceLimiter(db);
+        this.redis = new ResourceLimiter(redis);
+    }
+}
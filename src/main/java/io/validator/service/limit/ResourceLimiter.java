@@ -0,0 +1,51 @@
+package io.validator.service.limit;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the calls in flight to one downstream resource, callers over the bound park until a call finishes.
+ * 0 permits means unbounded.
+ */
+public class ResourceLimiter {
+
+    private final Semaphore permits;
+
+    public ResourceLimiter(int permits) {
+        this.permits = permits > 0 ? new Semaphore(permits, true) : null;
+    }
+
+    public boolean isBounded() {
+        return permits != null;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        if (permits == null) {
+            return call.get();
+        }
+        permits.acquireUninterruptibly();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return permits == null || permits.tryAcquire(timeout, unit);
+    }
+
+    public void release() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+}
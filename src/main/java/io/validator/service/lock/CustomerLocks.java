@@ -0,0 +1,41 @@
+package io.validator.service.lock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes validations of one customer, selected with validation.lock.mode.
+ */
+public interface CustomerLocks {
+
+    boolean tryLock(String customerId, long timeout, TimeUnit unit) throws InterruptedException;
+
+    void unlock(String customerId);
+
+    /**
+     * The lock the customer maps to, customers with equal keys share one lock. Callers holding several locks
+     * take each key once and in key order.
+     */
+    default String lockKey(String customerId) {
+        return customerId;
+    }
+
+    /**
+     * Whether the lock can be held by an owner id instead of a thread, required by tryLockAsync and unlockAsync.
+     */
+    default boolean supportsAsync() {
+        return false;
+    }
+
+    /**
+     * Takes the lock for the owner without blocking the caller, the owner id must be unique among the
+     * current holders and must not be a thread id.
+     */
+    default CompletableFuture<Boolean> tryLockAsync(String customerId, long ownerId, long timeout, TimeUnit unit) {
+        throw new UnsupportedOperationException("async locks are not supported by " + getClass().getSimpleName());
+    }
+
+    default CompletableFuture<Void> unlockAsync(String customerId, long ownerId) {
+        throw new UnsupportedOperationException("async locks are not supported by " + getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,86 @@
+package io.validator.service.lock;
+
+import io.validator.service.limit.DownstreamLimiters;
+import io.validator.service.limit.ResourceLimiter;
+import lombok.RequiredArgsConstructor;
+import org.redisson.RedissonLock;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock shared through Redis, for several instances working on the same customers.
+ * When Redis calls are bounded a waiting caller polls with backoff instead of waiting inside Redisson,
+ * so it only holds a permit for one round trip and waits for a hot customer do not starve other customers.
+ * Async locks are held by an owner id passed to RedissonLock in place of the thread id, so they can be
+ * released from whichever thread completes the validation.
+ */
+@Component
+@ConditionalOnProperty(name = "validation.lock.mode", havingValue = "redisson", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedissonCustomerLocks implements CustomerLocks {
+
+    private static final long MIN_BACKOFF_MS = 1;
+    private static final long MAX_BACKOFF_MS = 50;
+
+    private final RedissonClient redissonClient;
+    private final DownstreamLimiters downstreamLimiters;
+
+    @Override
+    public boolean tryLock(String customerId, long timeout, TimeUnit unit) throws InterruptedException {
+        RLock lock = redissonClient.getLock(lockName(customerId));
+        ResourceLimiter redis = downstreamLimiters.getRedis();
+        if (!redis.isBounded()) {
+            return lock.tryLock(timeout, unit);
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long backoff = MIN_BACKOFF_MS;
+        while (true) {
+            if (!redis.tryAcquire(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            boolean locked;
+            try {
+                locked = lock.tryLock();
+            } finally {
+                redis.release();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (locked || remaining <= 0) {
+                return locked;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(backoff, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    @Override
+    public void unlock(String customerId) {
+        downstreamLimiters.getRedis().run(() -> redissonClient.getLock(lockName(customerId)).unlock());
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String customerId, long ownerId, long timeout, TimeUnit unit) {
+        RedissonLock lock = (RedissonLock) redissonClient.getLock(lockName(customerId));
+        return lock.tryLockAsync(timeout, -1, unit, ownerId).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String customerId, long ownerId) {
+        RedissonLock lock = (RedissonLock) redissonClient.getLock(lockName(customerId));
+        return lock.unlockAsync(ownerId).toCompletableFuture();
+    }
+
+    private static String lockName(String customerId) {
+        return "customer_lock_" + customerId;
+    }
+}
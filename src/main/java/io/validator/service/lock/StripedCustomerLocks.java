@@ -0,0 +1,60 @@
+package io.validator.service.lock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process locks for single node and batch deployments, customers are hashed to a fixed array of locks,
+ * two customers may share a stripe but one customer always maps to the same one.
+ */
+@Component
+@ConditionalOnProperty(name = "validation.lock.mode", havingValue = "local")
+public class StripedCustomerLocks implements CustomerLocks {
+
+    private final ReentrantLock[] stripes;
+    private final String[] keys;
+    private final int mask;
+
+    public StripedCustomerLocks(@Value("${validation.lock.stripes}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        this.keys = new String[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+            this.keys[i] = String.format("%08x", i);
+        }
+    }
+
+    @Override
+    public boolean tryLock(String customerId, long timeout, TimeUnit unit) throws InterruptedException {
+        return stripe(customerId).tryLock(timeout, unit);
+    }
+
+    @Override
+    public void unlock(String customerId) {
+        stripe(customerId).unlock();
+    }
+
+    /**
+     * The stripe index as fixed width hex, so key order is stripe order.
+     */
+    @Override
+    public String lockKey(String customerId) {
+        return keys[index(customerId)];
+    }
+
+    private ReentrantLock stripe(String customerId) {
+        return stripes[index(customerId)];
+    }
+
+    private int index(String customerId) {
+        int hash = Objects.hashCode(customerId);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,156 @@
+package io.validator.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timers per validation stage and per request outcome plus customer lock, lane queue, shard and startup gauges.
+ * Meters are registered once, recording is a map lookup by enum and a timer update.
+ */
+@Component
+public class ValidationMetrics {
+
+    public enum Stage {
+        QUEUE, LOCK, DEDUP, WINDOWS, SAVE, SERIALIZE
+    }
+
+    public enum Outcome {
+        ACCEPTED, REJECTED, DUPLICATE, LOCK_TIMEOUT, QUEUE_FULL, PARSE_ERROR
+    }
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Map<Outcome, Timer> outcomes = new EnumMap<>(Outcome.class);
+    private final AtomicInteger lockWaiting = new AtomicInteger();
+    private final AtomicInteger lockHeld = new AtomicInteger();
+    private final AtomicInteger laneQueued = new AtomicInteger();
+    private final Counter laneRejected;
+    private final Counter decisionDropped;
+    private final AtomicInteger shardsOwned = new AtomicInteger();
+    private final Counter shardForwarded;
+    private final AtomicLong startupReady = new AtomicLong();
+    private final AtomicLong warmupRounds = new AtomicLong();
+    private final AtomicLong warmupP99 = new AtomicLong();
+    private final AtomicLong warmupTime = new AtomicLong();
+
+    public ValidationMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("validation.stage")
+                    .description("Time spent in one stage of a validation")
+                    .tag("stage", tag(stage))
+                    .register(registry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Timer.builder("validation.request")
+                    .description("Validations by outcome")
+                    .tag("outcome", tag(outcome))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        Gauge.builder("validation.lock.waiting", lockWaiting, AtomicInteger::get)
+                .description("Validations waiting for a customer lock")
+                .register(registry);
+        Gauge.builder("validation.lock.held", lockHeld, AtomicInteger::get)
+                .description("Customer locks held by this instance")
+                .register(registry);
+        Gauge.builder("validation.lane.queued", laneQueued, AtomicInteger::get)
+                .description("Tasks waiting in the customer lane queues")
+                .register(registry);
+        laneRejected = Counter.builder("validation.lane.rejected")
+                .description("Tasks rejected because the customer lane queue was full")
+                .register(registry);
+        decisionDropped = Counter.builder("validation.decision.dropped")
+                .description("Decision records dropped because the decision log buffer was full")
+                .register(registry);
+        Gauge.builder("validation.shard.owned", shardsOwned, AtomicInteger::get)
+                .description("Shards served by this instance")
+                .register(registry);
+        shardForwarded = Counter.builder("validation.shard.forwarded")
+                .description("Requests forwarded to the instance owning the shard of their customer")
+                .register(registry);
+        Gauge.builder("validation.startup.ready", startupReady, AtomicLong::get)
+                .description("Milliseconds from jvm start to the application ready event")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("validation.warmup.rounds", warmupRounds, AtomicLong::get)
+                .description("Warm-up rounds run before readiness")
+                .register(registry);
+        Gauge.builder("validation.warmup.p99", warmupP99, AtomicLong::get)
+                .description("Validation p99 of the last warm-up round")
+                .baseUnit("nanoseconds")
+                .register(registry);
+        Gauge.builder("validation.warmup.time", warmupTime, AtomicLong::get)
+                .description("Milliseconds spent in the warm-up")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    public void stage(Stage stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void outcome(Outcome outcome, long startNanos) {
+        outcomes.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void lockWaiting() {
+        lockWaiting.incrementAndGet();
+    }
+
+    public void lockDone(boolean acquired) {
+        lockWaiting.decrementAndGet();
+        if (acquired) {
+            lockHeld.incrementAndGet();
+        }
+    }
+
+    public void lockReleased() {
+        lockHeld.decrementAndGet();
+    }
+
+    public void laneQueued() {
+        laneQueued.incrementAndGet();
+    }
+
+    public void laneDequeued() {
+        laneQueued.decrementAndGet();
+    }
+
+    public void laneRejected() {
+        laneRejected.increment();
+    }
+
+    public void decisionDropped() {
+        decisionDropped.increment();
+    }
+
+    public void shardsOwned(int shards) {
+        shardsOwned.set(shards);
+    }
+
+    public void shardForwarded() {
+        shardForwarded.increment();
+    }
+
+    public void startupReady(long millis) {
+        startupReady.set(millis);
+    }
+
+    public void warmup(int rounds, long p99Nanos, long millis) {
+        warmupRounds.set(rounds);
+        warmupP99.set(p99Nanos);
+        warmupTime.set(millis);
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase().replace('_', '-');
+    }
+}
@@ -0,0 +1,204 @@
+package io.validator.service.ndjson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import io.validator.dto.LoadRequest;
+import io.validator.money.Money;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Reads NDJSON load requests from raw bytes. Lines are split in a reused buffer and each one is
+ * read by token, so a malformed line only fails itself and nothing is copied into an intermediate String.
+ * The amount is parsed to cents from the token characters: a request leaves loadAmount null and its cents
+ * are read with loadAmountCents until the next line is read. Each line gets its own small LoadRequest rather than
+ * a reused holder, the requests are handed to the customer lanes and are still pending while later lines are read.
+ */
+public class LoadRequestReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JsonFactory jsonFactory;
+    private final InputStream inputStream;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int start;
+    private int scan;
+    private int end;
+    private int lineStart;
+    private int lineEnd;
+    private boolean eof;
+    private long loadAmountCents;
+
+    public LoadRequestReader(JsonFactory jsonFactory, InputStream inputStream) {
+        this.jsonFactory = jsonFactory;
+        this.inputStream = inputStream;
+    }
+
+    public boolean next() throws IOException {
+        while (true) {
+            for (int i = scan; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    setLine(start, i);
+                    start = i + 1;
+                    scan = start;
+                    return true;
+                }
+            }
+            scan = end;
+            if (eof) {
+                if (start < end) {
+                    setLine(start, end);
+                    start = end;
+                    return true;
+                }
+                return false;
+            }
+            fill();
+        }
+    }
+
+    public LoadRequest request() throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(buffer, lineStart, lineEnd - lineStart)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw JsonMappingException.from(parser, "load request must be an object");
+            }
+            String id = null;
+            String customerId = null;
+            Long loadAmountCents = null;
+            LocalDateTime time = null;
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "id" -> id = text(parser, token);
+                    case "customer_id" -> customerId = text(parser, token);
+                    case "load_amount" -> loadAmountCents = cents(parser, token);
+                    case "time" -> time = time(parser, token);
+                    default -> throw JsonMappingException.from(parser, "unrecognized field " + field);
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw JsonMappingException.from(parser, "load request must be an object");
+            }
+            if (id == null || customerId == null || loadAmountCents == null || time == null) {
+                throw JsonMappingException.from(parser, "load request is missing a field");
+            }
+            this.loadAmountCents = loadAmountCents;
+            return new LoadRequest(id, customerId, null, time);
+        }
+    }
+
+    public long loadAmountCents() {
+        return loadAmountCents;
+    }
+
+    public String line() {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private void setLine(int from, int to) {
+        lineStart = from;
+        lineEnd = to > from && buffer[to - 1] == '\r' ? to - 1 : to;
+    }
+
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            scan -= start;
+            end -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = inputStream.read(buffer, end, buffer.length - end);
+        if (read < 0) {
+            eof = true;
+        } else {
+            end += read;
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw JsonMappingException.from(parser, "expected a scalar value");
+        }
+        return parser.getText();
+    }
+
+    private static Long cents(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw JsonMappingException.from(parser, "expected a scalar value");
+        }
+        try {
+            return Money.parseCents(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        } catch (NumberFormatException e) {
+            throw JsonMappingException.from(parser, "invalid load_amount", e);
+        }
+    }
+
+    private static LocalDateTime time(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            throw JsonMappingException.from(parser, "time must be a string");
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        try {
+            if (parser.getTextLength() == 20 && isUtcSeconds(chars, offset)) {
+                return LocalDateTime.of(number(chars, offset, 4), number(chars, offset + 5, 2), number(chars, offset + 8, 2),
+                        number(chars, offset + 11, 2), number(chars, offset + 14, 2), number(chars, offset + 17, 2));
+            }
+            String text = parser.getText();
+            return LocalDateTime.parse(text.endsWith("Z") ? text.substring(0, text.length() - 1) : text);
+        } catch (DateTimeException e) {
+            throw JsonMappingException.from(parser, "invalid time", e);
+        }
+    }
+
+    private static boolean isUtcSeconds(char[] chars, int offset) {
+        for (int i = 0; i < 20; i++) {
+            char c = chars[offset + i];
+            boolean valid = switch (i) {
+                case 4, 7 -> c == '-';
+                case 10 -> c == 'T';
+                case 13, 16 -> c == ':';
+                case 19 -> c == 'Z';
+                default -> c >= '0' && c <= '9';
+            };
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(char[] chars, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = value * 10 + chars[i] - '0';
+        }
+        return value;
+    }
+}
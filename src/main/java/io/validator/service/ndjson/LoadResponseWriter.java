@@ -0,0 +1,42 @@
+package io.validator.service.ndjson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.validator.dto.LoadResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes load responses as NDJSON through one generator, in the same form as the ObjectMapper produces them.
+ * The target writer stays open.
+ */
+public class LoadResponseWriter implements Closeable {
+
+    private final JsonGenerator generator;
+
+    public LoadResponseWriter(JsonFactory jsonFactory, Writer writer) throws IOException {
+        this.generator = jsonFactory.createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+    }
+
+    public void write(LoadResponse response) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", response.getId());
+        generator.writeBooleanField("accepted", response.isAccepted());
+        generator.writeStringField("customer_id", response.getCustomerId());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,57 @@
+package io.validator.service.ndjson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through memory mapped regions, so large archives are paged in by the OS instead of
+ * being copied through a read buffer. Regions are mapped one after another, files may exceed 2GB.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private static final long REGION_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private long position;
+    private MappedByteBuffer region;
+
+    public MappedFileInputStream(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (region == null || !region.hasRemaining()) {
+            if (position >= size) {
+                return -1;
+            }
+            long regionSize = Math.min(REGION_SIZE, size - position);
+            region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+            position += regionSize;
+        }
+        int read = Math.min(length, region.remaining());
+        region.get(bytes, offset, read);
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+}
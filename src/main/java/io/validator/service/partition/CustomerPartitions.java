@@ -0,0 +1,133 @@
+package io.validator.service.partition;
+
+import io.validator.service.metrics.ValidationMetrics;
+import io.validator.service.metrics.ValidationMetrics.Stage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of single threaded lanes, every customer is always served by the same lane,
+ * so work of one customer runs in submission order while different customers run in parallel.
+ * Lane queues are bounded: submit waits for room (file and stream input), trySubmit rejects with
+ * CustomerQueueFullException (requests, the caller is told to back off).
+ */
+@Component
+@Slf4j
+public class CustomerPartitions {
+
+    private final Lane[] lanes;
+    private final ValidationMetrics validationMetrics;
+
+    public CustomerPartitions(@Value("${validation.file.lanes}") int lanes,
+                              @Value("${validation.lane.queue.capacity}") int capacity,
+                              ValidationMetrics validationMetrics) {
+        int size = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+        this.validationMetrics = validationMetrics;
+        this.lanes = new Lane[size];
+        for (int i = 0; i < size; i++) {
+            this.lanes[i] = new Lane("customer-lane-" + i, capacity);
+            this.lanes[i].thread.start();
+        }
+        log.info("customer partitions started with {} lanes of capacity {}", size, capacity);
+    }
+
+    public <T> CompletableFuture<T> submit(String customerId, Supplier<T> task) {
+        Task<T> pending = new Task<>(task);
+        try {
+            validationMetrics.laneQueued();
+            lane(customerId).queue.put(pending);
+        } catch (InterruptedException e) {
+            validationMetrics.laneDequeued();
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        }
+        return pending.future;
+    }
+
+    public <T> CompletableFuture<T> trySubmit(String customerId, Supplier<T> task) {
+        Task<T> pending = new Task<>(task);
+        validationMetrics.laneQueued();
+        if (!lane(customerId).queue.offer(pending)) {
+            validationMetrics.laneDequeued();
+            validationMetrics.laneRejected();
+            throw new CustomerQueueFullException(customerId);
+        }
+        return pending.future;
+    }
+
+    public int size() {
+        return lanes.length;
+    }
+
+    @PreDestroy
+    public void preDestroy() throws InterruptedException {
+        for (Lane lane : lanes) {
+            lane.running = false;
+            lane.thread.interrupt();
+        }
+        for (Lane lane : lanes) {
+            lane.thread.join();
+        }
+    }
+
+    private Lane lane(String customerId) {
+        return lanes[Math.floorMod(Objects.hashCode(customerId), lanes.length)];
+    }
+
+    private final class Lane {
+        private final BlockingQueue<Task<?>> queue;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Lane(String name, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this::run, name);
+        }
+
+        private void run() {
+            while (running) {
+                try {
+                    queue.take().run();
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            List<Task<?>> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(task -> {
+                validationMetrics.laneDequeued();
+                task.future.completeExceptionally(new IllegalStateException("customer lane is stopped"));
+            });
+        }
+    }
+
+    private final class Task<T> {
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        Task(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        void run() {
+            validationMetrics.laneDequeued();
+            validationMetrics.stage(Stage.QUEUE, queuedAt);
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
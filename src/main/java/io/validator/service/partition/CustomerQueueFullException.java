@@ -0,0 +1,14 @@
+package io.validator.service.partition;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CustomerQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CustomerQueueFullException(String customerId) {
+        super("queue of the lane of customer " + customerId + " is full");
+    }
+}
@@ -0,0 +1,228 @@
+package io.validator.service.persistence;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.repository.LoadRepository;
+import io.validator.service.Futures;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Group commit of load entities, saves from concurrent validations are collected by one writer thread
+ * and inserted as a JDBC batch. A batch is closed when it is full or when the max delay is over,
+ * futures are completed only after the batch transaction is committed. With validation.persistence.daily.totals
+ * the accepted amounts are added to customer_daily_totals in the same transaction. Loads are enqueued under the
+ * read side of a lock whose write side stops the writer, so every load queued before the stop marker is written
+ * and none is queued after it.
+ */
+@Component
+@Slf4j
+public class LoadWriter {
+
+    private static final PendingLoad STOP = new PendingLoad(null, null);
+
+    private final LoadRepository loadRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean dailyTotals;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingLoad> queue = new LinkedBlockingQueue<>();
+    private final Thread worker = new Thread(this::run, "load-writer");
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private final AtomicLong submitted = new AtomicLong();
+    private final Object writtenMonitor = new Object();
+    private long written;
+    private volatile boolean running;
+
+    public LoadWriter(LoadRepository loadRepository,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${validation.persistence.daily.totals}") boolean dailyTotals,
+                      @Value("${validation.persistence.batch.size}") int batchSize,
+                      @Value("${validation.persistence.batch.delay.ms}") long maxDelayMs) {
+        this.loadRepository = loadRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dailyTotals = dailyTotals;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        running = true;
+        worker.start();
+    }
+
+    @PreDestroy
+    public void preDestroy() throws InterruptedException {
+        stopLock.writeLock().lock();
+        try {
+            running = false;
+            queue.add(STOP);
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+        worker.join();
+    }
+
+    public LoadEntity save(LoadEntity entity) {
+        return Futures.join(saveAsync(entity));
+    }
+
+    public CompletableFuture<LoadEntity> saveAsync(LoadEntity entity) {
+        PendingLoad pending = new PendingLoad(entity, new CompletableFuture<>());
+        if (!enqueue(List.of(pending))) {
+            return CompletableFuture.failedFuture(new IllegalStateException("load writer is stopped"));
+        }
+        return pending.future();
+    }
+
+    public List<LoadEntity> saveAll(List<LoadEntity> entities) {
+        List<PendingLoad> pending = new ArrayList<>(entities.size());
+        entities.forEach(entity -> pending.add(new PendingLoad(entity, new CompletableFuture<>())));
+        if (!enqueue(pending)) {
+            throw new IllegalStateException("load writer is stopped");
+        }
+        pending.forEach(load -> Futures.join(load.future()));
+        return entities;
+    }
+
+    private boolean enqueue(List<PendingLoad> pending) {
+        stopLock.readLock().lock();
+        try {
+            if (!running) {
+                return false;
+            }
+            submitted.addAndGet(pending.size());
+            queue.addAll(pending);
+            return true;
+        } finally {
+            stopLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until every load submitted so far is written or has failed.
+     */
+    public void flush() {
+        long target = submitted.get();
+        synchronized (writtenMonitor) {
+            while (written < target && running) {
+                try {
+                    writtenMonitor.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void run() {
+        List<PendingLoad> batch = new ArrayList<>(batchSize);
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingLoad next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            }
+            stopped |= batch.remove(STOP);
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        List<PendingLoad> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.remove(STOP);
+        left.forEach(pending -> pending.future().completeExceptionally(new IllegalStateException("load writer is stopped")));
+    }
+
+    private void write(List<PendingLoad> batch) {
+        List<LoadEntity> entities = new ArrayList<>(batch.size());
+        batch.forEach(pending -> entities.add(pending.entity()));
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(entities));
+            batch.forEach(pending -> pending.future().complete(pending.entity()));
+        } catch (RuntimeException e) {
+            log.error("batch insert of {} loads failed, saving them one by one", batch.size(), e);
+            batch.forEach(this::writeOne);
+        }
+        synchronized (writtenMonitor) {
+            written += batch.size();
+            writtenMonitor.notifyAll();
+        }
+    }
+
+    private void writeOne(PendingLoad pending) {
+        try {
+            pending.entity().setId(null);
+            transactionTemplate.executeWithoutResult(status -> insert(List.of(pending.entity())));
+            pending.future().complete(pending.entity());
+        } catch (RuntimeException e) {
+            pending.future().completeExceptionally(e);
+        }
+    }
+
+    private void insert(List<LoadEntity> entities) {
+        loadRepository.saveAll(entities);
+        if (dailyTotals) {
+            Map<DailyKey, DailyTotal> totals = new HashMap<>();
+            for (LoadEntity entity : entities) {
+                if (entity.isAccepted()) {
+                    totals.computeIfAbsent(new DailyKey(entity.getCustomerId(), entity.getTime().toLocalDate()), key -> new DailyTotal())
+                            .add(entity.getLoadAmountCents());
+                }
+            }
+            totals.forEach((key, total) -> loadRepository.addValidLoadDailyTotal(key.customerId(), key.day(), Money.toBigDecimal(total.amount), total.count));
+        }
+    }
+
+    private record DailyKey(String customerId, LocalDate day) {
+    }
+
+    private static final class DailyTotal {
+        private long amount;
+        private int count;
+
+        void add(long loadAmountCents) {
+            amount += loadAmountCents;
+            count++;
+        }
+    }
+
+    private record PendingLoad(LoadEntity entity, CompletableFuture<LoadEntity> future) {
+    }
+}
@@ -0,0 +1,171 @@
+package io.validator.service.replay;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.validator.dto.LoadResponse;
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.repository.LoadRepository;
+import io.validator.service.ValidationService;
+import io.validator.service.idempotency.LoadIdempotency.LoadKey;
+import io.validator.service.ndjson.LoadRequestReader;
+import io.validator.service.ndjson.LoadResponseWriter;
+import io.validator.service.ndjson.MappedFileInputStream;
+import io.validator.service.window.LoadTimeline;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Re-runs archived NDJSON loads with the current limits, for backfills after a limit change. The files are read
+ * through mapped buffers, sorted by load time (equal times keep file order) and decided on one thread against
+ * in-memory timelines that start empty, without customer locks or db lookups. The first load of a (customer_id, id)
+ * in time order is decided, later ones get its response like any duplicate. Responses are written to an NDJSON file
+ * in time order. Without an output file the decided loads are written to the load_replay staging table through
+ * chunked JDBC batches, then one transaction replaces the loads of the replayed customers within the replayed time
+ * range, and any load with a replayed (customer_id, id), with the staged ones and rebuilds customer_daily_totals.
+ * A failed replay leaves the load table as it was, loads of other customers or outside the range are kept. Only
+ * one replay may run at a time, and a running instance has to reload its windows and idempotency state after it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoadReplay {
+
+    private static final String LOAD_COLUMNS = "id, load_id, customer_id, load_amount, timestamp, daily_count_accepted, daily_limit_accepted, weekly_limit_accepted, rejected_by_rule";
+    private static final String STAGE_LOAD = "INSERT INTO load_replay (" + LOAD_COLUMNS + ") VALUES (NEXT VALUE FOR load_seq, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String CLEAR_STAGED = "DELETE FROM load_replay";
+    private static final String DELETE_REPLACED = "DELETE FROM load l WHERE (l.timestamp >= ? AND l.timestamp <= ? AND l.customer_id IN (SELECT DISTINCT r.customer_id FROM load_replay r))"
+            + " OR EXISTS (SELECT 1 FROM load_replay r WHERE r.customer_id = l.customer_id AND r.load_id = l.load_id)";
+    private static final String INSERT_STAGED = "INSERT INTO load (" + LOAD_COLUMNS + ") SELECT " + LOAD_COLUMNS + " FROM load_replay";
+
+    private final ObjectMapper objectMapper;
+    private final ValidationService validationService;
+    private final LoadRepository loadRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    @Value("${validation.replay.chunk.size}")
+    private int chunkSize;
+    @Value("${validation.persistence.daily.totals}")
+    private boolean dailyTotals;
+
+    public ReplaySummary replay(List<Path> files, Path output) throws IOException {
+        long start = System.currentTimeMillis();
+        List<LoadEntity> loads = new ArrayList<>();
+        long skipped = 0;
+        for (Path file : files) {
+            skipped += read(file, loads);
+        }
+        loads.sort(Comparator.comparing(LoadEntity::getTime));
+        log.info("replaying {} loads from {} files, {} lines skipped", loads.size(), files.size(), skipped);
+
+        ReplaySummary summary;
+        if (output != null) {
+            try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+                 LoadResponseWriter responses = new LoadResponseWriter(objectMapper.getFactory(), writer)) {
+                summary = decide(loads, skipped, start, responses, null);
+                responses.flush();
+            }
+        } else {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(CLEAR_STAGED));
+            summary = decide(loads, skipped, start, null, new ArrayList<>(chunkSize));
+            if (!loads.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(DELETE_REPLACED, Timestamp.valueOf(loads.get(0).getTime()), Timestamp.valueOf(loads.get(loads.size() - 1).getTime()));
+                    jdbcTemplate.update(INSERT_STAGED);
+                    jdbcTemplate.update(CLEAR_STAGED);
+                    loadRepository.deleteValidLoadDailyTotals();
+                    if (dailyTotals) {
+                        loadRepository.insertValidLoadDailyTotals();
+                    }
+                });
+            }
+        }
+        log.info("replayed {} loads in {} ms, {} accepted, {} duplicates", summary.loads(), summary.millis(), summary.accepted(), summary.duplicates());
+        return summary;
+    }
+
+    private long read(Path file, List<LoadEntity> loads) throws IOException {
+        long skipped = 0;
+        try (LoadRequestReader requests = new LoadRequestReader(objectMapper.getFactory(), new MappedFileInputStream(file))) {
+            while (requests.next()) {
+                try {
+                    loads.add(new LoadEntity(requests.request(), requests.loadAmountCents()));
+                } catch (JsonProcessingException e) {
+                    log.error("error while parsing from file {}, loadRequest = {}", file, requests.line());
+                    skipped++;
+                }
+            }
+        }
+        return skipped;
+    }
+
+    private ReplaySummary decide(List<LoadEntity> loads, long skipped, long start, LoadResponseWriter responses, List<LoadEntity> chunk) throws IOException {
+        Map<String, LoadTimeline> timelines = new HashMap<>();
+        Map<LoadKey, LoadResponse> decided = new HashMap<>();
+        long accepted = 0;
+        long duplicates = 0;
+        for (LoadEntity entity : loads) {
+            LoadKey key = new LoadKey(entity.getCustomerId(), entity.getLoadId());
+            LoadResponse response = decided.get(key);
+            if (response != null) {
+                duplicates++;
+            } else {
+                LoadTimeline timeline = timelines.computeIfAbsent(entity.getCustomerId(), id -> new LoadTimeline());
+                LocalDateTime time = entity.getTime();
+                response = validationService.evaluate(entity, timeline.totals(time), window -> timeline.aggregate(window.start(time), time));
+                if (response.isAccepted()) {
+                    timeline.add(entity.getTime(), entity.getLoadAmountCents());
+                    accepted++;
+                }
+                decided.put(key, response);
+                if (chunk != null) {
+                    chunk.add(entity);
+                    if (chunk.size() >= chunkSize) {
+                        stage(chunk);
+                        chunk.clear();
+                    }
+                }
+            }
+            if (responses != null) {
+                responses.write(response);
+            }
+        }
+        if (chunk != null && !chunk.isEmpty()) {
+            stage(chunk);
+        }
+        return new ReplaySummary(loads.size(), accepted, duplicates, skipped, System.currentTimeMillis() - start);
+    }
+
+    private void stage(List<LoadEntity> chunk) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(STAGE_LOAD, chunk, chunk.size(), (statement, load) -> {
+                    statement.setString(1, load.getLoadId());
+                    statement.setString(2, load.getCustomerId());
+                    statement.setBigDecimal(3, Money.toBigDecimal(load.getLoadAmountCents()));
+                    statement.setTimestamp(4, Timestamp.valueOf(load.getTime()));
+                    statement.setBoolean(5, load.isDailyCountAccepted());
+                    statement.setBoolean(6, load.isDailyLimitAccepted());
+                    statement.setBoolean(7, load.isWeeklyLimitAccepted());
+                    statement.setString(8, load.getRejectedByRule());
+                }));
+    }
+}
@@ -0,0 +1,51 @@
+package io.validator.service.replay;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch entry point of the replay profile: replays validation.replay.files and the file arguments,
+ * then closes the context and exits.
+ */
+@Component
+@Profile("replay")
+@RequiredArgsConstructor
+@Slf4j
+public class ReplayRunner implements ApplicationRunner {
+
+    private final LoadReplay loadReplay;
+    private final ConfigurableApplicationContext context;
+    @Value("${validation.replay.files}")
+    private String[] files;
+    @Value("${validation.replay.output}")
+    private String output;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Path> inputs = new ArrayList<>();
+        for (String file : files) {
+            inputs.add(Path.of(file.trim()));
+        }
+        args.getNonOptionArgs().forEach(file -> inputs.add(Path.of(file)));
+        int exitCode = 0;
+        try {
+            loadReplay.replay(inputs, output.isBlank() ? null : Path.of(output));
+        } catch (Exception e) {
+            log.error("replay of {} failed", inputs, e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
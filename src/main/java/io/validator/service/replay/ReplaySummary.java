@@ -0,0 +1,4 @@
+package io.validator.service.replay;
+
+public record ReplaySummary(long loads, long accepted, long duplicates, long skipped, long millis) {
+}
@@ -0,0 +1,154 @@
+package io.validator.service.rule;
+
+import io.validator.entity.LoadEntity;
+import io.validator.service.window.WindowAggregate;
+import io.validator.service.window.WindowTotals;
+import io.validator.service.window.WindowType;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Limit rules compiled for evaluation. Rules with the same scope, window and metric keep the tightest threshold,
+ * and each distinct window is aggregated once per load for both its amount and count rules. The customer daily amount,
+ * weekly amount and daily count limits come from WindowTotals and have their own columns, so they are always
+ * evaluated. The other rules only run for loads that pass them: load scope rules first, then windows from the
+ * shortest, stopping at the first rejection, which is recorded as rejected_by_rule.
+ */
+public final class LimitPlan {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    @Getter
+    private final long dailyAmountLimit;
+    @Getter
+    private final long weeklyAmountLimit;
+    @Getter
+    private final long dailyCountLimit;
+    private final Check[] checks;
+    @Getter
+    private final Set<WindowType> windows;
+
+    private LimitPlan(long dailyAmountLimit, long weeklyAmountLimit, long dailyCountLimit, Check[] checks, Set<WindowType> windows) {
+        this.dailyAmountLimit = dailyAmountLimit;
+        this.weeklyAmountLimit = weeklyAmountLimit;
+        this.dailyCountLimit = dailyCountLimit;
+        this.checks = checks;
+        this.windows = windows;
+    }
+
+    public static LimitPlan compile(List<LimitRule> rules) {
+        long dailyAmount = UNLIMITED;
+        long weeklyAmount = UNLIMITED;
+        long dailyCount = UNLIMITED;
+        Check load = null;
+        Map<WindowType, Check> windowChecks = new EnumMap<>(WindowType.class);
+        for (LimitRule rule : rules) {
+            if (rule.scope() == Scope.LOAD) {
+                load = (load == null ? new Check(null) : load).with(rule);
+            } else if (rule.window() == WindowType.DAY && rule.metric() == Metric.AMOUNT) {
+                dailyAmount = Math.min(dailyAmount, rule.threshold());
+            } else if (rule.window() == WindowType.WEEK && rule.metric() == Metric.AMOUNT) {
+                weeklyAmount = Math.min(weeklyAmount, rule.threshold());
+            } else if (rule.window() == WindowType.DAY && rule.metric() == Metric.COUNT) {
+                dailyCount = Math.min(dailyCount, rule.threshold());
+            } else {
+                windowChecks.merge(rule.window(), new Check(rule.window()).with(rule), Check::merge);
+            }
+        }
+        List<Check> checks = new ArrayList<>();
+        if (load != null) {
+            checks.add(load);
+        }
+        checks.addAll(windowChecks.values());
+        Set<WindowType> windows = windowChecks.isEmpty() ? EnumSet.noneOf(WindowType.class) : EnumSet.copyOf(windowChecks.keySet());
+        return new LimitPlan(dailyAmount, weeklyAmount, dailyCount, checks.toArray(new Check[0]), windows);
+    }
+
+    /**
+     * Whether rules beyond the daily amount, weekly amount and daily count limits are configured.
+     */
+    public boolean hasRuleChecks() {
+        return checks.length > 0;
+    }
+
+    /**
+     * Records the result of every rule on the entity and tells whether the load is accepted, aggregates are
+     * requested at most once per window and only when a rule on that window has to be checked.
+     */
+    public boolean evaluate(LoadEntity entity, WindowTotals totals, Function<WindowType, WindowAggregate> aggregates) {
+        long amount = entity.getLoadAmountCents();
+        boolean dailyLimitAccepted = amount + totals.getDailyAmount() <= dailyAmountLimit;
+        boolean weeklyLimitAccepted = amount + totals.getWeeklyAmount() <= weeklyAmountLimit;
+        boolean dailyCountAccepted = totals.getDailyCount() < dailyCountLimit;
+        entity.setDailyLimitAccepted(dailyLimitAccepted);
+        entity.setWeeklyLimitAccepted(weeklyLimitAccepted);
+        entity.setDailyCountAccepted(dailyCountAccepted);
+        entity.setRejectedByRule(null);
+        if (!dailyLimitAccepted || !weeklyLimitAccepted || !dailyCountAccepted) {
+            return false;
+        }
+        for (Check check : checks) {
+            String rejectedBy = check.rejectedBy(amount, check.window == null ? WindowAggregate.EMPTY : aggregates.apply(check.window));
+            if (rejectedBy != null) {
+                entity.setRejectedByRule(rejectedBy);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The tightest amount and count rules of one window, or of the load itself when the window is null.
+     */
+    private static final class Check {
+        private final WindowType window;
+        private long amountLimit = UNLIMITED;
+        private String amountRule;
+        private long countLimit = UNLIMITED;
+        private String countRule;
+
+        Check(WindowType window) {
+            this.window = window;
+        }
+
+        Check with(LimitRule rule) {
+            if (rule.metric() == Metric.AMOUNT && rule.threshold() < amountLimit) {
+                amountLimit = rule.threshold();
+                amountRule = rule.toString();
+            } else if (rule.metric() == Metric.COUNT && rule.threshold() < countLimit) {
+                countLimit = rule.threshold();
+                countRule = rule.toString();
+            }
+            return this;
+        }
+
+        Check merge(Check other) {
+            if (other.amountLimit < amountLimit) {
+                amountLimit = other.amountLimit;
+                amountRule = other.amountRule;
+            }
+            if (other.countLimit < countLimit) {
+                countLimit = other.countLimit;
+                countRule = other.countRule;
+            }
+            return this;
+        }
+
+        String rejectedBy(long amount, WindowAggregate aggregate) {
+            if (amount + aggregate.amount() > amountLimit) {
+                return amountRule;
+            }
+            if (aggregate.count() >= countLimit) {
+                return countRule;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.validator.service.rule;
+
+import io.validator.money.Money;
+import io.validator.service.window.WindowType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One limit, written customer:&lt;window&gt;:&lt;metric&gt;:&lt;threshold&gt; or load:&lt;metric&gt;:&lt;threshold&gt;,
+ * e.g. customer:month:amount:50000 or customer:hour:count:2. Amount thresholds are in dollars and kept in cents,
+ * a load passes when the window total including it is at most the threshold. Load scope rules have no window.
+ */
+public record LimitRule(Scope scope, WindowType window, Metric metric, long threshold) {
+
+    public static List<LimitRule> parseAll(String rules) {
+        List<LimitRule> parsed = new ArrayList<>();
+        for (String rule : rules.split(",")) {
+            if (!rule.isBlank()) {
+                parsed.add(parse(rule));
+            }
+        }
+        return parsed;
+    }
+
+    public static LimitRule parse(String rule) {
+        String[] parts = rule.trim().toUpperCase(Locale.ROOT).split(":");
+        try {
+            Scope scope = Scope.valueOf(parts[0]);
+            if (scope == Scope.LOAD && parts.length == 3) {
+                Metric metric = Metric.valueOf(parts[1]);
+                return new LimitRule(scope, null, metric, threshold(metric, parts[2]));
+            }
+            if (scope == Scope.CUSTOMER && parts.length == 4) {
+                Metric metric = Metric.valueOf(parts[2]);
+                return new LimitRule(scope, WindowType.valueOf(parts[1]), metric, threshold(metric, parts[3]));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid limit rule " + rule, e);
+        }
+        throw new IllegalArgumentException("limit rule must be customer:<window>:<metric>:<threshold> or load:<metric>:<threshold>, got " + rule);
+    }
+
+    private static long threshold(Metric metric, String value) {
+        return metric == Metric.AMOUNT ? Money.toCents(new BigDecimal(value)) : Long.parseLong(value);
+    }
+
+    @Override
+    public String toString() {
+        String value = metric == Metric.AMOUNT ? Money.toBigDecimal(threshold).toPlainString() : String.valueOf(threshold);
+        return (scope == Scope.LOAD ? "load" : "customer:" + window.name().toLowerCase(Locale.ROOT))
+                + ":" + metric.name().toLowerCase(Locale.ROOT) + ":" + value;
+    }
+}
@@ -0,0 +1,6 @@
+package io.validator.service.rule;
+
+public enum Metric {
+    AMOUNT,
+    COUNT
+}
@@ -0,0 +1,9 @@
+package io.validator.service.rule;
+
+/**
+ * What a rule limits: the accepted loads of the customer in a window, or the load on its own.
+ */
+public enum Scope {
+    CUSTOMER,
+    LOAD
+}
@@ -0,0 +1,337 @@
+package io.validator.service.shard;
+
+import io.validator.service.metrics.ValidationMetrics;
+import io.validator.service.persistence.LoadWriter;
+import io.validator.service.window.LoadWindows;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Shard ownership of this node with validation.shard.enabled. Nodes announce themselves with a member key and own
+ * shards through owner keys in Redis, both leases renewed on every heartbeat. The desired owner of a shard is given
+ * by the consistent hash ring of the live members: a node claims free shards it should own, renews the ones it
+ * keeps and hands over the others. A crashed node's members and owner keys expire after the lease and its shards
+ * are claimed by the next nodes on the ring. Before a shard is served, the windows of its customers are reloaded
+ * from the db. Before it is released, new requests are turned away, running ones are awaited on the release thread
+ * while the heartbeat keeps renewing the other shards, and their saves are flushed, so one node at a time validates
+ * a customer with local windows and locks. A node that could not renew a shard, e.g. while Redis is unreachable,
+ * stops serving it one heartbeat before its lease can expire, and validations still running on it are fenced by
+ * requireServed before their save. The Bloom filter of the idempotency keys is only filled at startup, so it cannot
+ * be used with sharding.
+ */
+@Component
+@Slf4j
+public class ShardCoordinator {
+
+    private static final String MEMBER_PREFIX = "validation:shard:member:";
+    private static final String OWNER_PREFIX = "validation:shard:owner:";
+    private static final RedisScript<Long> RENEW = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+    private static final RedisScript<Long> RELEASE = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final LoadWindows loadWindows;
+    private final LoadWriter loadWriter;
+    private final ValidationMetrics validationMetrics;
+    @Getter
+    private final boolean enabled;
+    private final int shards;
+    private final int virtualNodes;
+    private final Duration lease;
+    private final Duration heartbeat;
+    private final boolean bloomEnabled;
+    @Getter
+    private final String nodeId;
+    private volatile String url;
+    private final List<String> ownerKeys;
+    private final AtomicIntegerArray owned;
+    private final AtomicIntegerArray inFlight;
+    private final AtomicIntegerArray releasing;
+    private final AtomicLongArray renewed;
+    private volatile Routing routing;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "shard-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService releaser = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "shard-release");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ShardCoordinator(StringRedisTemplate redisTemplate,
+                            LoadWindows loadWindows,
+                            LoadWriter loadWriter,
+                            ValidationMetrics validationMetrics,
+                            @Value("${validation.shard.enabled}") boolean enabled,
+                            @Value("${validation.shard.count}") int shards,
+                            @Value("${validation.shard.virtual.nodes}") int virtualNodes,
+                            @Value("${validation.shard.lease}") Duration lease,
+                            @Value("${validation.shard.heartbeat}") Duration heartbeat,
+                            @Value("${validation.shard.node.id}") String nodeId,
+                            @Value("${validation.shard.node.url}") String url,
+                            @Value("${validation.idempotency.bloom.enabled}") boolean bloomEnabled) {
+        this.redisTemplate = redisTemplate;
+        this.loadWindows = loadWindows;
+        this.loadWriter = loadWriter;
+        this.validationMetrics = validationMetrics;
+        this.enabled = enabled;
+        this.shards = shards;
+        this.virtualNodes = virtualNodes;
+        this.lease = lease;
+        this.heartbeat = heartbeat;
+        this.bloomEnabled = bloomEnabled;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.url = url.isBlank() ? null : url;
+        this.ownerKeys = IntStream.range(0, shards).mapToObj(shard -> OWNER_PREFIX + shard).toList();
+        this.owned = new AtomicIntegerArray(shards);
+        this.inFlight = new AtomicIntegerArray(shards);
+        this.releasing = new AtomicIntegerArray(shards);
+        this.renewed = new AtomicLongArray(shards);
+        this.routing = new Routing(new String[shards], Map.of());
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        if (!enabled) {
+            return;
+        }
+        if (bloomEnabled) {
+            throw new IllegalStateException("validation.shard.enabled requires validation.idempotency.bloom.enabled=false");
+        }
+        if (heartbeat.multipliedBy(2).compareTo(lease) >= 0) {
+            throw new IllegalStateException("validation.shard.lease has to be more than twice validation.shard.heartbeat");
+        }
+    }
+
+    @EventListener
+    public void webServerInitialized(WebServerInitializedEvent event) {
+        if (url == null) {
+            url = "http://127.0.0.1:" + event.getWebServer().getPort();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            log.info("node {} at {} joins {} shards", nodeId, url, shards);
+            scheduler.scheduleWithFixedDelay(this::heartbeatQuietly, 0, heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(lease.toMillis(), TimeUnit.MILLISECONDS);
+        releaser.shutdown();
+        releaser.awaitTermination(lease.toMillis(), TimeUnit.MILLISECONDS);
+        for (int shard = 0; shard < shards; shard++) {
+            if (owned.get(shard) == 1) {
+                releasing.set(shard, 1);
+                release(shard);
+            }
+        }
+        redisTemplate.delete(MEMBER_PREFIX + nodeId);
+    }
+
+    public int shardOf(String customerId) {
+        return ShardRing.shardOf(customerId, shards);
+    }
+
+    /**
+     * Registers a validation on the shard if this node serves it, exit has to follow.
+     */
+    public boolean enter(int shard) {
+        inFlight.incrementAndGet(shard);
+        if (releasing.get(shard) == 0 && serves(shard)) {
+            return true;
+        }
+        inFlight.decrementAndGet(shard);
+        return false;
+    }
+
+    public void exit(int shard) {
+        inFlight.decrementAndGet(shard);
+    }
+
+    /**
+     * Base url of the node owning the shard, null when it has no owner or this node owns it but does not serve it yet.
+     */
+    public String ownerUrl(int shard) {
+        Routing current = routing;
+        String owner = current.owners()[shard];
+        return owner == null || owner.equals(nodeId) ? null : current.urls().get(owner);
+    }
+
+    /**
+     * Whether this node owns the shard and renewed it recently enough that no other node can have claimed it.
+     */
+    public boolean serves(int shard) {
+        return owned.get(shard) == 1 && System.nanoTime() - renewed.get(shard) < lease.minus(heartbeat).toNanos();
+    }
+
+    /**
+     * Fails unless this node still serves the customer's shard. Checked before a save, so a validation that was
+     * running when the lease lapsed is not committed next to the new owner's.
+     */
+    public void requireServed(String customerId) {
+        if (enabled && !serves(shardOf(customerId))) {
+            throw new ShardUnavailableException("shard of customer " + customerId + " is no longer served by node " + nodeId);
+        }
+    }
+
+    public int ownedShards() {
+        int count = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            count += owned.get(shard);
+        }
+        return count;
+    }
+
+    synchronized void heartbeat() {
+        long now = System.nanoTime();
+        redisTemplate.opsForValue().set(MEMBER_PREFIX + nodeId, url, lease);
+        Map<String, String> members = members();
+        ShardRing ring = new ShardRing(members.keySet(), virtualNodes);
+        List<String> owners = redisTemplate.opsForValue().multiGet(ownerKeys);
+        String[] table = new String[shards];
+        Set<Integer> claimed = new HashSet<>();
+        for (int shard = 0; shard < shards; shard++) {
+            String owner = owners == null ? null : owners.get(shard);
+            boolean desired = nodeId.equals(ring.owner(shard));
+            if (!nodeId.equals(owner) && owned.get(shard) == 1) {
+                owned.set(shard, 0);
+                log.warn("node {} lost the lease of shard {}", nodeId, shard);
+            }
+            if (releasing.get(shard) == 1) {
+                if (nodeId.equals(owner) && renew(shard)) {
+                    renewed.set(shard, now);
+                } else {
+                    owned.set(shard, 0);
+                }
+                owner = null;
+            } else if (nodeId.equals(owner)) {
+                if (!desired) {
+                    releasing.set(shard, 1);
+                    int released = shard;
+                    releaser.execute(() -> release(released));
+                    owner = null;
+                } else if (!renew(shard)) {
+                    owned.set(shard, 0);
+                    owner = null;
+                } else {
+                    renewed.set(shard, now);
+                    if (owned.get(shard) == 0) {
+                        claimed.add(shard);
+                    }
+                }
+            } else if (owner == null && desired && claim(shard)) {
+                renewed.set(shard, now);
+                owner = nodeId;
+                claimed.add(shard);
+            }
+            table[shard] = owner;
+        }
+        if (!claimed.isEmpty()) {
+            loadWindows.reload(customerId -> claimed.contains(shardOf(customerId)));
+            claimed.forEach(shard -> owned.set(shard, 1));
+            log.info("node {} took over {} shards", nodeId, claimed.size());
+        }
+        routing = new Routing(table, members);
+        validationMetrics.shardsOwned(ownedShards());
+    }
+
+    private void heartbeatQuietly() {
+        try {
+            heartbeat();
+        } catch (RuntimeException e) {
+            log.error("shard heartbeat of node {} failed", nodeId, e);
+        }
+    }
+
+    private Map<String, String> members() {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(MEMBER_PREFIX + "*").count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        Map<String, String> members = new HashMap<>();
+        List<String> urls = keys.isEmpty() ? List.of() : redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            if (urls.get(i) != null) {
+                members.put(keys.get(i).substring(MEMBER_PREFIX.length()), urls.get(i));
+            }
+        }
+        return members;
+    }
+
+    private boolean claim(int shard) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(ownerKeys.get(shard), nodeId, lease));
+    }
+
+    private boolean renew(int shard) {
+        Long renewed = redisTemplate.execute(RENEW, List.of(ownerKeys.get(shard)), nodeId, String.valueOf(lease.toMillis()));
+        return renewed != null && renewed == 1;
+    }
+
+    /**
+     * Hands over a shard marked releasing: new requests are already turned away, running ones are awaited while the
+     * heartbeat keeps renewing the lease and stay fenced by requireServed if it lapses anyway.
+     */
+    private void release(int shard) {
+        long deadline = System.nanoTime() + lease.toNanos();
+        while (inFlight.get(shard) > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        owned.set(shard, 0);
+        try {
+            loadWriter.flush();
+            synchronized (this) {
+                redisTemplate.execute(RELEASE, List.of(ownerKeys.get(shard)), nodeId);
+            }
+        } catch (RuntimeException e) {
+            log.error("node {} failed to release shard {}", nodeId, shard, e);
+        } finally {
+            releasing.set(shard, 0);
+        }
+    }
+
+    private record Routing(String[] owners, Map<String, String> urls) {
+    }
+}
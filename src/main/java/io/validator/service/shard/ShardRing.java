@@ -0,0 +1,54 @@
+package io.validator.service.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing of shards to nodes. Every node is placed on the ring at a number of virtual points and a shard
+ * belongs to the first point at or after its own, so a node joining or leaving only moves the shards next to its
+ * points. Customers map to a fixed number of shards by hash, which keeps the ownership table small.
+ */
+public final class ShardRing {
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+
+    public ShardRing(Collection<String> nodes, int virtualNodes) {
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    public static int shardOf(String customerId, int shards) {
+        return (int) Long.remainderUnsigned(hash(customerId), shards);
+    }
+
+    /**
+     * The node owning the shard, null when there are no nodes.
+     */
+    public String owner(int shard) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(hash("shard-" + shard));
+        return (point == null ? points.firstEntry() : point).getValue();
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes with a final mix, stable across JVMs and instances.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
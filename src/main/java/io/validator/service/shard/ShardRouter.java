@@ -0,0 +1,200 @@
+package io.validator.service.shard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.validator.dto.LoadRequest;
+import io.validator.dto.LoadResponse;
+import io.validator.service.Futures;
+import io.validator.service.ValidationService;
+import io.validator.service.metrics.ValidationMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends each load to the node owning its customer's shard. Loads of owned shards are validated here, the others
+ * are forwarded to the owner with the forwarded header, and a forwarded load is never forwarded again: if the
+ * shard moved in between, or has no owner during a failover, the caller gets 503 and retries. Batches are split by
+ * owner and reassembled in request order. The file endpoints are not routed, they are rejected with sharding. Without
+ * validation.shard.enabled everything is validated locally.
+ */
+@Component
+public class ShardRouter {
+
+    public static final String FORWARDED_HEADER = "X-Validation-Forwarded";
+    private static final String VALIDATION_PATH = "/api/v1/validation";
+    private static final String BATCH_PATH = "/api/v1/validation/batch";
+
+    private final ValidationService validationService;
+    private final ShardCoordinator shardCoordinator;
+    private final ObjectMapper objectMapper;
+    private final ValidationMetrics validationMetrics;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final JavaType responseType;
+    private final JavaType responseListType;
+
+    public ShardRouter(ValidationService validationService,
+                       ShardCoordinator shardCoordinator,
+                       ObjectMapper objectMapper,
+                       ValidationMetrics validationMetrics,
+                       @Value("${validation.shard.forward.timeout}") Duration timeout) {
+        this.validationService = validationService;
+        this.shardCoordinator = shardCoordinator;
+        this.objectMapper = objectMapper;
+        this.validationMetrics = validationMetrics;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.responseType = objectMapper.constructType(LoadResponse.class);
+        this.responseListType = objectMapper.getTypeFactory().constructCollectionType(List.class, LoadResponse.class);
+    }
+
+    public LoadResponse validate(LoadRequest loadRequest, boolean forwarded) {
+        if (!shardCoordinator.isEnabled()) {
+            return validationService.validate(loadRequest);
+        }
+        int shard = shardCoordinator.shardOf(loadRequest.getCustomerId());
+        if (shardCoordinator.enter(shard)) {
+            try {
+                return validationService.validate(loadRequest);
+            } finally {
+                shardCoordinator.exit(shard);
+            }
+        }
+        return Futures.join(forward(shard, VALIDATION_PATH, loadRequest, forwarded, responseType));
+    }
+
+    public CompletableFuture<LoadResponse> validateAsync(LoadRequest loadRequest, boolean forwarded) {
+        if (!shardCoordinator.isEnabled()) {
+            return validationService.validateAsync(loadRequest);
+        }
+        int shard = shardCoordinator.shardOf(loadRequest.getCustomerId());
+        if (shardCoordinator.enter(shard)) {
+            try {
+                return validationService.validateAsync(loadRequest).whenComplete((response, e) -> shardCoordinator.exit(shard));
+            } catch (RuntimeException e) {
+                shardCoordinator.exit(shard);
+                throw e;
+            }
+        }
+        return forward(shard, VALIDATION_PATH, loadRequest, forwarded, responseType);
+    }
+
+    public List<LoadResponse> validateBatch(List<LoadRequest> loadRequests, boolean forwarded) {
+        if (!shardCoordinator.isEnabled()) {
+            return validationService.validateBatch(loadRequests);
+        }
+        Set<Integer> entered = new HashSet<>();
+        List<Integer> local = new ArrayList<>();
+        Map<Integer, List<Integer>> remote = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < loadRequests.size(); i++) {
+                int shard = shardCoordinator.shardOf(loadRequests.get(i).getCustomerId());
+                if (entered.contains(shard) || shardCoordinator.enter(shard)) {
+                    entered.add(shard);
+                    local.add(i);
+                } else {
+                    remote.computeIfAbsent(shard, s -> new ArrayList<>()).add(i);
+                }
+            }
+            Map<String, List<Integer>> byOwner = new LinkedHashMap<>();
+            remote.forEach((shard, indexes) -> byOwner.computeIfAbsent(ownerUrl(shard, forwarded), url -> new ArrayList<>()).addAll(indexes));
+            Map<List<Integer>, CompletableFuture<List<LoadResponse>>> forwards = new LinkedHashMap<>();
+            byOwner.forEach((url, indexes) -> forwards.put(indexes, post(url, BATCH_PATH, select(loadRequests, indexes), responseListType)));
+
+            LoadResponse[] responses = new LoadResponse[loadRequests.size()];
+            List<LoadResponse> localResponses = validationService.validateBatch(select(loadRequests, local));
+            for (int i = 0; i < local.size(); i++) {
+                responses[local.get(i)] = localResponses.get(i);
+            }
+            forwards.forEach((indexes, future) -> {
+                List<LoadResponse> forwardedResponses = Futures.join(future);
+                for (int i = 0; i < indexes.size(); i++) {
+                    responses[indexes.get(i)] = forwardedResponses.get(i);
+                }
+            });
+            return List.of(responses);
+        } finally {
+            entered.forEach(shardCoordinator::exit);
+        }
+    }
+
+    /**
+     * Rejects endpoints that validate on this node only, a file mixes customers of every shard.
+     */
+    public void requireUnsharded(String endpoint) {
+        if (shardCoordinator.isEnabled()) {
+            throw new UnroutedRequestException(endpoint + " is not available with validation.shard.enabled, use the batch endpoint");
+        }
+    }
+
+    private <T> CompletableFuture<T> forward(int shard, String path, Object body, boolean forwarded, JavaType type) {
+        try {
+            return post(ownerUrl(shard, forwarded), path, body, type);
+        } catch (ShardUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String ownerUrl(int shard, boolean forwarded) {
+        if (forwarded) {
+            throw new ShardUnavailableException("shard " + shard + " is not served by node " + shardCoordinator.getNodeId());
+        }
+        String url = shardCoordinator.ownerUrl(shard);
+        if (url == null) {
+            throw new ShardUnavailableException("shard " + shard + " has no owner");
+        }
+        return url;
+    }
+
+    private <T> CompletableFuture<T> post(String url, String path, Object body, JavaType type) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url + path))
+                    .timeout(timeout)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(FORWARDED_HEADER, shardCoordinator.getNodeId())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        validationMetrics.shardForwarded();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).handle((response, e) -> {
+            if (e != null) {
+                throw new ShardUnavailableException("forward to " + url + " failed", e);
+            }
+            if (response.statusCode() != 200) {
+                throw new ShardUnavailableException("forward to " + url + " answered " + response.statusCode());
+            }
+            try {
+                return objectMapper.readValue(response.body(), type);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private static List<LoadRequest> select(List<LoadRequest> loadRequests, List<Integer> indexes) {
+        List<LoadRequest> selected = new ArrayList<>(indexes.size());
+        indexes.forEach(i -> selected.add(loadRequests.get(i)));
+        return selected;
+    }
+}
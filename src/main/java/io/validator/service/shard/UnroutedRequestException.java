@@ -0,0 +1,14 @@
+package io.validator.service.shard;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnroutedRequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnroutedRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,135 @@
+package io.validator.service.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.validator.dto.LoadRequest;
+import io.validator.repository.LoadRepository;
+import io.validator.service.ValidationService;
+import io.validator.service.metrics.ValidationMetrics;
+import io.validator.service.persistence.LoadWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the validation path before the instance reports ready: the bundled input.txt is replayed through the
+ * Jackson request and response mapping and validate, round after round, under scratch customer ids with a prefix
+ * unique to the run. It stops once the p99 of a round is within 10% of the previous one or after
+ * validation.warmup.rounds. Afterwards only the scratch loads, daily totals, windows and idempotency state are
+ * removed, so windows shared with running instances are never rebuilt. Runners complete before the readiness state
+ * turns to accepting traffic, so the readiness probe stays down during the warm-up. With validation.warmup.exit the
+ * application exits after it, which is the training run for the AppCDS archive.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+
+    public static final String SCRATCH_CUSTOMER_PREFIX = "~warmup-";
+    private static final String INPUT = "input.txt";
+    private static final double STABLE_RATIO = 0.1;
+
+    private final ObjectMapper objectMapper;
+    private final ValidationService validationService;
+    private final LoadRepository loadRepository;
+    private final LoadWriter loadWriter;
+    private final PlatformTransactionManager transactionManager;
+    private final ValidationMetrics validationMetrics;
+    private final ConfigurableApplicationContext context;
+    @Value("${validation.warmup.enabled}")
+    private boolean enabled;
+    @Value("${validation.warmup.rounds}")
+    private int rounds;
+    @Value("${validation.warmup.exit}")
+    private boolean exit;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (enabled) {
+            warmUp();
+        }
+        if (exit) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    public WarmupSummary warmUp() throws IOException {
+        long start = System.currentTimeMillis();
+        List<String> lines = readInput();
+        String scratchPrefix = SCRATCH_CUSTOMER_PREFIX + UUID.randomUUID() + "-";
+        long previous = 0;
+        long p99 = 0;
+        int round = 0;
+        boolean stable = false;
+        try {
+            while (round < rounds && !stable) {
+                p99 = round(lines, scratchPrefix + round + "-");
+                round++;
+                stable = previous > 0 && Math.abs(p99 - previous) <= previous * STABLE_RATIO;
+                log.info("warm-up round {} p99 {} us", round, TimeUnit.NANOSECONDS.toMicros(p99));
+                previous = p99;
+            }
+        } finally {
+            removeScratchLoads(scratchPrefix);
+        }
+        WarmupSummary summary = new WarmupSummary(round, stable, p99, System.currentTimeMillis() - start);
+        validationMetrics.warmup(summary.rounds(), summary.p99Nanos(), summary.millis());
+        log.info("warm-up done in {} ms, {} rounds, p99 {} us, {}", summary.millis(), summary.rounds(),
+                TimeUnit.NANOSECONDS.toMicros(summary.p99Nanos()), stable ? "stable" : "not stable");
+        return summary;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        long millis = ManagementFactory.getRuntimeMXBean().getUptime();
+        validationMetrics.startupReady(millis);
+        log.info("ready {} ms after jvm start", millis);
+    }
+
+    private long round(List<String> lines, String customerPrefix) throws IOException {
+        long[] nanos = new long[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            long start = System.nanoTime();
+            LoadRequest request = objectMapper.readValue(lines.get(i), LoadRequest.class);
+            request.setCustomerId(customerPrefix + request.getCustomerId());
+            objectMapper.writeValueAsString(validationService.validate(request));
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[(int) Math.ceil(nanos.length * 0.99) - 1];
+    }
+
+    private List<String> readInput() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ClassPathResource(INPUT).getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines().filter(line -> !line.isBlank()).toList();
+        }
+    }
+
+    private void removeScratchLoads(String scratchPrefix) {
+        loadWriter.flush();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            loadRepository.deleteByCustomerIdPrefix(scratchPrefix);
+            loadRepository.deleteValidLoadDailyTotalsByCustomerIdPrefix(scratchPrefix);
+        });
+        validationService.forget(scratchPrefix);
+    }
+}
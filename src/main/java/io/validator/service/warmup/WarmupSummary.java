@@ -0,0 +1,4 @@
+package io.validator.service.warmup;
+
+public record WarmupSummary(int rounds, boolean stable, long p99Nanos, long millis) {
+}
@@ -0,0 +1,22 @@
+package io.validator.service.window;
+
+import io.validator.entity.LoadEntity;
+
+/**
+ * Windows kept in a store that checks the limits and adds the load in one atomic step,
+ * loads are counted by checkAndAdd and accepted is not needed.
+ */
+public interface AtomicLoadWindows extends LoadWindows {
+
+    /**
+     * Returns the totals before the load, the load is added only when it passes all three limits. A load checked
+     * before under the same customer and load id is not added again and gets its first decision back.
+     */
+    Check checkAndAdd(LoadEntity entity, long dailyLimit, int dailyCountLimit, long weeklyLimit);
+
+    /**
+     * Totals before the load and whether it passed the three limits, repeated when the load was checked before.
+     */
+    record Check(WindowTotals totals, boolean added, boolean repeated) {
+    }
+}
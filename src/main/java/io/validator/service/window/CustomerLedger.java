@@ -0,0 +1,99 @@
+package io.validator.service.window;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.repository.LoadRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Running accepted totals per customer by day and by ISO week, rebuilt from the load table at startup
+ * and updated on every accepted save. Totals are kept for the whole day and week, which matches the
+ * database windows as long as loads of a customer arrive in time order.
+ */
+@Component
+@ConditionalOnProperty(name = "validation.window.mode", havingValue = "ledger")
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerLedger implements LoadWindows {
+
+    private final LoadRepository loadRepository;
+    private final Map<String, CustomerTotals> customers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void postConstruct() {
+        reload();
+    }
+
+    @Override
+    public WindowTotals totals(String customerId, LocalDateTime time) {
+        CustomerTotals totals = customers.get(customerId);
+        return totals == null ? WindowTotals.EMPTY : totals.get(time.toLocalDate());
+    }
+
+    @Override
+    public void accepted(LoadEntity entity) {
+        customers.computeIfAbsent(entity.getCustomerId(), id -> new CustomerTotals())
+                .add(entity.getTime().toLocalDate(), entity.getLoadAmountCents(), 1);
+    }
+
+    @Override
+    public void reload() {
+        customers.clear();
+        loadRepository.getValidLoadDailyTotals().forEach(total -> customers
+                .computeIfAbsent(total.getCustomerId(), id -> new CustomerTotals())
+                .add(total.getLoadDay(), Money.toCents(total.getAmount()), total.getLoadCount()));
+        log.info("customer ledger loaded for {} customers", customers.size());
+    }
+
+    @Override
+    public void reload(Predicate<String> customerIds) {
+        Map<String, CustomerTotals> loaded = new HashMap<>();
+        loadRepository.getValidLoadDailyTotals().stream()
+                .filter(total -> customerIds.test(total.getCustomerId()))
+                .forEach(total -> loaded.computeIfAbsent(total.getCustomerId(), id -> new CustomerTotals())
+                        .add(total.getLoadDay(), Money.toCents(total.getAmount()), total.getLoadCount()));
+        customers.keySet().removeIf(customerId -> customerIds.test(customerId) && !loaded.containsKey(customerId));
+        customers.putAll(loaded);
+        log.info("customer ledger reloaded for {} customers", loaded.size());
+    }
+
+    @Override
+    public void forget(String customerIdPrefix) {
+        customers.keySet().removeIf(customerId -> customerId.startsWith(customerIdPrefix));
+    }
+
+    private static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static final class CustomerTotals {
+        private final Map<LocalDate, long[]> days = new HashMap<>();
+        private final Map<LocalDate, Long> weeks = new HashMap<>();
+
+        synchronized WindowTotals get(LocalDate day) {
+            long[] daily = days.get(day);
+            long weekly = weeks.getOrDefault(weekStart(day), 0L);
+            return daily == null ? new WindowTotals(0, 0, weekly) : new WindowTotals(daily[0], (int) daily[1], weekly);
+        }
+
+        synchronized void add(LocalDate day, long amount, long count) {
+            long[] daily = days.computeIfAbsent(day, d -> new long[2]);
+            daily[0] += amount;
+            daily[1] += count;
+            weeks.merge(weekStart(day), amount, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.validator.service.window;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.repository.LoadRepository;
+import io.validator.repository.LoadWindowTotals;
+import io.validator.service.limit.DownstreamLimiters;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Reads the earlier days of the week from the pre-aggregated customer_daily_totals table, at most 6 rows, and the
+ * day of the load from the load table up to the load time, so the windows match the database windows.
+ */
+@Component
+@ConditionalOnProperty(name = "validation.window.mode", havingValue = "daily-totals")
+@RequiredArgsConstructor
+public class DailyTotalsLoadWindows implements LoadWindows {
+
+    private final LoadRepository loadRepository;
+    private final DownstreamLimiters downstreamLimiters;
+    @Value("${validation.persistence.daily.totals}")
+    private boolean dailyTotalsPersisted;
+
+    @PostConstruct
+    public void postConstruct() {
+        if (!dailyTotalsPersisted) {
+            throw new IllegalStateException("validation.window.mode=daily-totals requires validation.persistence.daily.totals=true");
+        }
+    }
+
+    @Override
+    public WindowTotals totals(String customerId, LocalDateTime time) {
+        LocalDate day = time.toLocalDate();
+        LoadWindowTotals totals = downstreamLimiters.getDb().call(() -> loadRepository.getValidLoadTotalsOfDayAfterDailyTotals(customerId,
+                day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), day, day.atStartOfDay(), time));
+        return new WindowTotals(Money.toCents(totals.getDailyAmount()), (int) totals.getDailyCount(), Money.toCents(totals.getWeeklyAmount()));
+    }
+
+    @Override
+    public boolean countsDaily(LocalDateTime loadTime, LocalDateTime time) {
+        return LoadWindows.super.countsDaily(loadTime, time) && !loadTime.isAfter(time);
+    }
+
+    @Override
+    public boolean countsWeekly(LocalDateTime loadTime, LocalDateTime time) {
+        return LoadWindows.super.countsWeekly(loadTime, time) && !loadTime.isAfter(time);
+    }
+
+    @Override
+    public void accepted(LoadEntity entity) {
+    }
+
+    @Override
+    @Transactional
+    public void reload() {
+        loadRepository.deleteValidLoadDailyTotals();
+        loadRepository.insertValidLoadDailyTotals();
+    }
+}
@@ -0,0 +1,65 @@
+package io.validator.service.window;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.repository.LoadRangeTotal;
+import io.validator.repository.LoadRepository;
+import io.validator.repository.LoadWindowTotals;
+import io.validator.service.limit.DownstreamLimiters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "validation.window.mode", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DatabaseLoadWindows implements LoadWindows {
+
+    private final LoadRepository loadRepository;
+    private final DownstreamLimiters downstreamLimiters;
+
+    @Override
+    public WindowTotals totals(String customerId, LocalDateTime time) {
+        LocalDateTime dayStart = LocalDateTime.of(LocalDate.from(time), LocalTime.MIDNIGHT);
+        LocalDateTime dayStartOfTheWeek = dayStart.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LoadWindowTotals totals = downstreamLimiters.getDb().call(() -> loadRepository.getValidLoadTotalsBetweenDates(customerId, dayStartOfTheWeek, dayStart, time));
+        return new WindowTotals(Money.toCents(totals.getDailyAmount()), (int) totals.getDailyCount(), Money.toCents(totals.getWeeklyAmount()));
+    }
+
+    @Override
+    public boolean countsDaily(LocalDateTime loadTime, LocalDateTime time) {
+        return LoadWindows.super.countsDaily(loadTime, time) && !loadTime.isAfter(time);
+    }
+
+    @Override
+    public boolean countsWeekly(LocalDateTime loadTime, LocalDateTime time) {
+        return LoadWindows.super.countsWeekly(loadTime, time) && !loadTime.isAfter(time);
+    }
+
+    @Override
+    public boolean supportsAggregates() {
+        return true;
+    }
+
+    @Override
+    public WindowAggregate aggregate(String customerId, WindowType window, LocalDateTime time, List<LoadEntity> unsaved) {
+        LocalDateTime from = window.start(time);
+        LoadRangeTotal total = downstreamLimiters.getDb().call(() -> loadRepository.getValidLoadTotalBetween(customerId, from, time));
+        return new WindowAggregate(Money.toCents(total.getAmount()), total.getLoadCount()).plus(unsaved, from, time);
+    }
+
+    @Override
+    public void accepted(LoadEntity entity) {
+    }
+
+    @Override
+    public void reload() {
+    }
+}
@@ -0,0 +1,113 @@
+package io.validator.service.window;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Accepted loads of one customer ordered by time, with the same windows as the database query:
+ * loads from the start of the day / ISO week up to and including the given time. Loads are kept in
+ * day buckets of sorted times with prefix sums, a lookup is a map lookup and a binary search in the day
+ * plus the totals of at most 6 earlier days of the week. A late load is inserted in place, so any later
+ * lookup sees it whatever the arrival order was.
+ */
+public final class LoadTimeline {
+
+    private final TreeMap<LocalDate, DayBucket> days = new TreeMap<>();
+
+    public synchronized WindowTotals totals(LocalDateTime time) {
+        LocalDate day = time.toLocalDate();
+        DayBucket bucket = days.get(day);
+        int dailyCount = bucket == null ? 0 : bucket.countUpTo(time);
+        long dailyAmount = bucket == null ? 0 : bucket.amountOf(dailyCount);
+        long weeklyAmount = dailyAmount;
+        LocalDate weekStart = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        for (DayBucket earlier : days.subMap(weekStart, true, day, false).values()) {
+            weeklyAmount += earlier.amountOf(earlier.size);
+        }
+        return new WindowTotals(dailyAmount, dailyCount, weeklyAmount);
+    }
+
+    /**
+     * Amount and count of the loads in [from, to], one binary search per end and the totals of the days between.
+     */
+    public synchronized WindowAggregate aggregate(LocalDateTime from, LocalDateTime to) {
+        long amount = 0;
+        long count = 0;
+        for (Map.Entry<LocalDate, DayBucket> day : days.subMap(from.toLocalDate(), true, to.toLocalDate(), true).entrySet()) {
+            DayBucket bucket = day.getValue();
+            int first = day.getKey().equals(from.toLocalDate()) ? bucket.countBefore(from) : 0;
+            int last = day.getKey().equals(to.toLocalDate()) ? bucket.countUpTo(to) : bucket.size;
+            if (last > first) {
+                amount += bucket.amountOf(last) - bucket.amountOf(first);
+                count += last - first;
+            }
+        }
+        return new WindowAggregate(amount, count);
+    }
+
+    public synchronized void add(LocalDateTime time, long amountCents) {
+        days.computeIfAbsent(time.toLocalDate(), day -> new DayBucket()).add(time, amountCents);
+    }
+
+    private static final class DayBucket {
+        private LocalDateTime[] times = new LocalDateTime[4];
+        private long[] prefixAmounts = new long[4];
+        private int size;
+
+        /**
+         * Number of loads at or before the time, equal times count as before.
+         */
+        int countUpTo(LocalDateTime time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid].isAfter(time)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        int countBefore(LocalDateTime time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid].isBefore(time)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        long amountOf(int count) {
+            return count == 0 ? 0 : prefixAmounts[count - 1];
+        }
+
+        void add(LocalDateTime time, long amountCents) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                prefixAmounts = Arrays.copyOf(prefixAmounts, size * 2);
+            }
+            int index = countUpTo(time);
+            System.arraycopy(times, index, times, index + 1, size - index);
+            System.arraycopy(prefixAmounts, index, prefixAmounts, index + 1, size - index);
+            times[index] = time;
+            prefixAmounts[index] = amountOf(index) + amountCents;
+            size++;
+            for (int i = index + 1; i < size; i++) {
+                prefixAmounts[i] += amountCents;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.validator.service.window;
+
+import io.validator.entity.LoadEntity;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Accepted load totals for the windows checked by the limits, amounts are in cents.
+ */
+public interface LoadWindows {
+
+    WindowTotals totals(String customerId, LocalDateTime time);
+
+    /**
+     * Totals including loads of the customer accepted earlier in the same batch and not saved yet,
+     * counted the way this mode counts saved loads.
+     */
+    default WindowTotals totals(String customerId, LocalDateTime time, List<LoadEntity> unsaved) {
+        WindowTotals saved = totals(customerId, time);
+        if (unsaved.isEmpty()) {
+            return saved;
+        }
+        long dailyAmount = saved.getDailyAmount();
+        int dailyCount = saved.getDailyCount();
+        long weeklyAmount = saved.getWeeklyAmount();
+        for (LoadEntity load : unsaved) {
+            if (countsDaily(load.getTime(), time)) {
+                dailyAmount += load.getLoadAmountCents();
+                dailyCount++;
+            }
+            if (countsWeekly(load.getTime(), time)) {
+                weeklyAmount += load.getLoadAmountCents();
+            }
+        }
+        return new WindowTotals(dailyAmount, dailyCount, weeklyAmount);
+    }
+
+    default boolean countsDaily(LocalDateTime loadTime, LocalDateTime time) {
+        return loadTime.toLocalDate().equals(time.toLocalDate());
+    }
+
+    default boolean countsWeekly(LocalDateTime loadTime, LocalDateTime time) {
+        return loadTime.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                .equals(time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+    }
+
+    /**
+     * Whether aggregate can answer any window type, limit rules beyond the daily and weekly totals need it.
+     */
+    default boolean supportsAggregates() {
+        return false;
+    }
+
+    /**
+     * Accepted amount and count of the customer from the start of the window up to and including the time,
+     * plus the unsaved loads of the batch in that range.
+     */
+    default WindowAggregate aggregate(String customerId, WindowType window, LocalDateTime time, List<LoadEntity> unsaved) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " has no " + window + " aggregates");
+    }
+
+    void accepted(LoadEntity entity);
+
+    void reload();
+
+    /**
+     * Replaces the state of the matching customers with their accepted loads in the db while other customers keep
+     * being validated, for customers this instance takes over. Modes without local state have nothing to reload.
+     */
+    default void reload(Predicate<String> customerIds) {
+    }
+
+    /**
+     * Drops the state of the customers whose id starts with the prefix once their loads are deleted from the db,
+     * without touching other customers. Modes that read the db have nothing to drop.
+     */
+    default void forget(String customerIdPrefix) {
+    }
+}
@@ -0,0 +1,168 @@
+package io.validator.service.window;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.repository.LoadRepository;
+import io.validator.service.limit.DownstreamLimiters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Windows shared by all instances as Redis hashes per customer and day / ISO week, the limits are checked and the
+ * counters incremented by one Lua script. A key expires when its window is over, but not before the retention
+ * after its last increment. Every checked load also sets a (customer id, load id) key with the decision until its
+ * day key expires, so a retry that reaches another instance before the first insert is visible in the db gets the
+ * first decision and is counted once. Keys of one customer share a hash tag so the script also runs on a cluster.
+ */
+@Component
+@ConditionalOnProperty(name = "validation.window.mode", havingValue = "redis")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisLoadWindows implements AtomicLoadWindows {
+
+    private static final String PREFIX = "load_window:";
+    private static final RedisScript<List<Long>> CHECK_AND_ADD = RedisScript.of(new ClassPathResource("redis/load-windows.lua"), longList());
+
+    private final StringRedisTemplate redisTemplate;
+    private final LoadRepository loadRepository;
+    private final DownstreamLimiters downstreamLimiters;
+    @Value("${validation.window.redis.retention}")
+    private Duration retention;
+
+    @Override
+    public WindowTotals totals(String customerId, LocalDateTime time) {
+        return execute(customerId, "", time.toLocalDate(), 0, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, false).totals();
+    }
+
+    @Override
+    public Check checkAndAdd(LoadEntity entity, long dailyLimit, int dailyCountLimit, long weeklyLimit) {
+        return execute(entity.getCustomerId(), entity.getLoadId(), entity.getTime().toLocalDate(), entity.getLoadAmountCents(), dailyLimit, dailyCountLimit, weeklyLimit, true);
+    }
+
+    @Override
+    public void accepted(LoadEntity entity) {
+    }
+
+    /**
+     * Replaces all counters with the accepted loads saved in the db, only consistent when no validation is running.
+     */
+    @Override
+    public void reload() {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(PREFIX + "*").count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+        Map<String, Long> weeks = new HashMap<>();
+        Map<String, Long> weekExpiry = new HashMap<>();
+        Map<String, Map<String, String>> days = new HashMap<>();
+        Map<String, Long> dayExpiry = new HashMap<>();
+        loadRepository.getValidLoadDailyTotals().forEach(total -> {
+            long amount = Money.toCents(total.getAmount());
+            String dayKey = dayKey(total.getCustomerId(), total.getLoadDay());
+            days.put(dayKey, Map.of("amount", String.valueOf(amount), "count", String.valueOf(total.getLoadCount())));
+            dayExpiry.put(dayKey, expireAt(total.getLoadDay().plusDays(1)));
+            String weekKey = weekKey(total.getCustomerId(), total.getLoadDay());
+            weeks.merge(weekKey, amount, Long::sum);
+            weekExpiry.put(weekKey, expireAt(weekStart(total.getLoadDay()).plusWeeks(1)));
+        });
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            days.forEach((key, fields) -> {
+                Map<byte[], byte[]> hash = new HashMap<>();
+                fields.forEach((field, value) -> hash.put(bytes(field), bytes(value)));
+                connection.hashCommands().hMSet(bytes(key), hash);
+                connection.keyCommands().pExpireAt(bytes(key), dayExpiry.get(key));
+            });
+            weeks.forEach((key, amount) -> {
+                connection.hashCommands().hSet(bytes(key), bytes("amount"), bytes(String.valueOf(amount)));
+                connection.keyCommands().pExpireAt(bytes(key), weekExpiry.get(key));
+            });
+            return null;
+        });
+        log.info("redis windows loaded for {} customer days", days.size());
+    }
+
+    /**
+     * Deletes the counters and decisions of the customers with the prefix, the others are not touched.
+     */
+    @Override
+    public void forget(String customerIdPrefix) {
+        List<String> keys = new ArrayList<>();
+        String pattern = PREFIX + "{" + customerIdPrefix.replaceAll("([*?\\[\\]\\\\])", "\\\\$1") + "*";
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+
+    private Check execute(String customerId, String loadId, LocalDate day, long amount, long dailyLimit, int dailyCountLimit, long weeklyLimit, boolean add) {
+        List<String> keys = List.of(dayKey(customerId, day), weekKey(customerId, day), loadKey(customerId, loadId));
+        long dayExpireAt = expireAt(day.plusDays(1));
+        List<Long> result = downstreamLimiters.getRedis().call(() -> redisTemplate.execute(CHECK_AND_ADD, keys,
+                String.valueOf(amount),
+                String.valueOf(dailyLimit),
+                String.valueOf(dailyCountLimit),
+                String.valueOf(weeklyLimit),
+                String.valueOf(dayExpireAt),
+                String.valueOf(expireAt(weekStart(day).plusWeeks(1))),
+                add ? "1" : "0",
+                String.valueOf(Math.max(dayExpireAt - System.currentTimeMillis(), 1))));
+        return new Check(new WindowTotals(result.get(0), result.get(1).intValue(), result.get(2)), result.get(3) == 1, result.get(4) == 1);
+    }
+
+    private long expireAt(LocalDate windowEnd) {
+        long end = windowEnd.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return Math.max(end, System.currentTimeMillis()) + retention.toMillis();
+    }
+
+    private static String dayKey(String customerId, LocalDate day) {
+        return PREFIX + "{" + customerId + "}:" + day;
+    }
+
+    private static String loadKey(String customerId, String loadId) {
+        return PREFIX + "{" + customerId + "}:load:" + loadId;
+    }
+
+    private static String weekKey(String customerId, LocalDate day) {
+        return PREFIX + "{" + customerId + "}:" + day.get(IsoFields.WEEK_BASED_YEAR) + "-W" + day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+    }
+
+    private static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<List<Long>> longList() {
+        return (Class<List<Long>>) (Class<?>) List.class;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,96 @@
+package io.validator.service.window;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.repository.LoadRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory windows with the database semantics, a load only counts for loads at or after its time.
+ * Unlike the ledger it stays exact when loads of a customer arrive out of time order, without a db scan.
+ */
+@Component
+@ConditionalOnProperty(name = "validation.window.mode", havingValue = "timeline")
+@RequiredArgsConstructor
+@Slf4j
+public class TimelineLoadWindows implements LoadWindows {
+
+    private final LoadRepository loadRepository;
+    private final Map<String, LoadTimeline> customers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void postConstruct() {
+        reload();
+    }
+
+    @Override
+    public WindowTotals totals(String customerId, LocalDateTime time) {
+        LoadTimeline timeline = customers.get(customerId);
+        return timeline == null ? WindowTotals.EMPTY : timeline.totals(time);
+    }
+
+    @Override
+    public boolean countsDaily(LocalDateTime loadTime, LocalDateTime time) {
+        return LoadWindows.super.countsDaily(loadTime, time) && !loadTime.isAfter(time);
+    }
+
+    @Override
+    public boolean countsWeekly(LocalDateTime loadTime, LocalDateTime time) {
+        return LoadWindows.super.countsWeekly(loadTime, time) && !loadTime.isAfter(time);
+    }
+
+    @Override
+    public boolean supportsAggregates() {
+        return true;
+    }
+
+    @Override
+    public WindowAggregate aggregate(String customerId, WindowType window, LocalDateTime time, List<LoadEntity> unsaved) {
+        LoadTimeline timeline = customers.get(customerId);
+        LocalDateTime from = window.start(time);
+        return (timeline == null ? WindowAggregate.EMPTY : timeline.aggregate(from, time)).plus(unsaved, from, time);
+    }
+
+    @Override
+    public void accepted(LoadEntity entity) {
+        customers.computeIfAbsent(entity.getCustomerId(), id -> new LoadTimeline())
+                .add(entity.getTime(), entity.getLoadAmountCents());
+    }
+
+    @Override
+    public void reload() {
+        customers.clear();
+        loadRepository.getValidLoads().forEach(load -> customers
+                .computeIfAbsent(load.getCustomerId(), id -> new LoadTimeline())
+                .add(load.getTime(), Money.toCents(load.getAmount())));
+        log.info("load timelines loaded for {} customers", customers.size());
+    }
+
+    @Override
+    public void reload(Predicate<String> customerIds) {
+        Map<String, LoadTimeline> loaded = new HashMap<>();
+        loadRepository.getValidLoads().stream()
+                .filter(load -> customerIds.test(load.getCustomerId()))
+                .forEach(load -> loaded.computeIfAbsent(load.getCustomerId(), id -> new LoadTimeline())
+                        .add(load.getTime(), Money.toCents(load.getAmount())));
+        customers.keySet().removeIf(customerId -> customerIds.test(customerId) && !loaded.containsKey(customerId));
+        customers.putAll(loaded);
+        log.info("load timelines reloaded for {} customers", loaded.size());
+    }
+
+    @Override
+    public void forget(String customerIdPrefix) {
+        customers.keySet().removeIf(customerId -> customerId.startsWith(customerIdPrefix));
+    }
+}
@@ -0,0 +1,29 @@
+package io.validator.service.window;
+
+import io.validator.entity.LoadEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Accepted amount in cents and count of a customer in one window.
+ */
+public record WindowAggregate(long amount, long count) {
+
+    public static final WindowAggregate EMPTY = new WindowAggregate(0, 0);
+
+    /**
+     * Adds the unsaved loads of a batch that fall in [from, to].
+     */
+    public WindowAggregate plus(List<LoadEntity> unsaved, LocalDateTime from, LocalDateTime to) {
+        long amount = this.amount;
+        long count = this.count;
+        for (LoadEntity load : unsaved) {
+            if (!load.getTime().isBefore(from) && !load.getTime().isAfter(to)) {
+                amount += load.getLoadAmountCents();
+                count++;
+            }
+        }
+        return new WindowAggregate(amount, count);
+    }
+}
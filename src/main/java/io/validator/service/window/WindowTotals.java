@@ -0,0 +1,12 @@
+package io.validator.service.window;
+
+import lombok.Value;
+
+@Value
+public class WindowTotals {
+    public static final WindowTotals EMPTY = new WindowTotals(0, 0, 0);
+
+    long dailyAmount;
+    int dailyCount;
+    long weeklyAmount;
+}
@@ -0,0 +1,23 @@
+alter table LOAD add column if not exists load_id VARCHAR(255);
+
+create sequence if not exists load_seq start with 1 increment by 50;
+
+create unique index if not exists load_customer_load_id_idx on LOAD (customer_id, load_id);
+create index if not exists load_customer_timestamp_idx on LOAD (customer_id, timestamp, daily_count_accepted, daily_limit_accepted, weekly_limit_accepted, load_amount);
+
+create table if not exists customer_daily_totals
+(
+    customer_id VARCHAR(255)   not null,
+    load_date   DATE           not null,
+    load_amount NUMERIC(20, 2) not null,
+    load_count  INT            not null,
+    primary key (customer_id, load_date)
+);
+
+insert into customer_daily_totals (customer_id, load_date, load_amount, load_count)
+select customer_id, cast(timestamp as date), sum(load_amount), count(*)
+from LOAD
+where daily_count_accepted is true
+  and daily_limit_accepted is true
+  and weekly_limit_accepted is true
+group by customer_id, cast(timestamp as date);
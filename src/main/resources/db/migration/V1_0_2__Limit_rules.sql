@@ -0,0 +1,4 @@
+alter table LOAD add column if not exists rejected_by_rule VARCHAR(255);
+
+drop index if exists load_customer_timestamp_idx;
+create index if not exists load_customer_timestamp_idx on LOAD (customer_id, timestamp, daily_count_accepted, daily_limit_accepted, weekly_limit_accepted, rejected_by_rule, load_amount);
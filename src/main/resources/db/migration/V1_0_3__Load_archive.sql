@@ -0,0 +1 @@
+create index if not exists load_timestamp_idx on LOAD (timestamp);
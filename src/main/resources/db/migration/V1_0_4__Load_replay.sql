@@ -0,0 +1,14 @@
+create table if not exists load_replay
+(
+    id                    BIGINT PRIMARY KEY,
+    load_id               VARCHAR(255),
+    customer_id           VARCHAR(255),
+    load_amount           NUMERIC(20, 2),
+    timestamp             TIMESTAMP,
+    daily_count_accepted  BOOLEAN,
+    daily_limit_accepted  BOOLEAN,
+    weekly_limit_accepted BOOLEAN,
+    rejected_by_rule      VARCHAR(255)
+);
+
+create index if not exists load_replay_customer_load_id_idx on load_replay (customer_id, load_id);
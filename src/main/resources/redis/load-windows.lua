@@ -0,0 +1,30 @@
+-- KEYS[1] day hash (amount, count), KEYS[2] week hash (amount), KEYS[3] load key (customer id, load id)
+-- ARGV amount, daily limit, daily count limit, weekly limit (cents), day expire at, week expire at (ms), add (1/0),
+-- load key time to live (ms)
+-- returns the totals before the load, 1 when the load was added and 1 when the load key was already set:
+-- the load was checked before, e.g. a retry on another instance, nothing is added and the added value is the first one
+local day = redis.call('HMGET', KEYS[1], 'amount', 'count')
+local dailyAmount = tonumber(day[1]) or 0
+local dailyCount = tonumber(day[2]) or 0
+local weeklyAmount = tonumber(redis.call('HGET', KEYS[2], 'amount')) or 0
+local amount = tonumber(ARGV[1])
+if ARGV[7] ~= '1' then
+    return {dailyAmount, dailyCount, weeklyAmount, 0, 0}
+end
+local added = 0
+if dailyAmount + amount <= tonumber(ARGV[2])
+        and dailyCount < tonumber(ARGV[3])
+        and weeklyAmount + amount <= tonumber(ARGV[4]) then
+    added = 1
+end
+if not redis.call('SET', KEYS[3], added, 'NX', 'PX', ARGV[8]) then
+    return {dailyAmount, dailyCount, weeklyAmount, tonumber(redis.call('GET', KEYS[3])), 1}
+end
+if added == 1 then
+    redis.call('HINCRBY', KEYS[1], 'amount', ARGV[1])
+    redis.call('HINCRBY', KEYS[1], 'count', 1)
+    redis.call('HINCRBY', KEYS[2], 'amount', ARGV[1])
+    redis.call('PEXPIREAT', KEYS[1], ARGV[5])
+    redis.call('PEXPIREAT', KEYS[2], ARGV[6])
+end
+return {dailyAmount, dailyCount, weeklyAmount, added, 0}
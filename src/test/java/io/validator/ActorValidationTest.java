@@ -0,0 +1,10 @@
+package io.validator;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The validation suite with every customer validated on its lane instead of under a lock.
+ */
+@TestPropertySource(properties = "validation.execution.mode=actor")
+public class ActorValidationTest extends ValidationTest {
+}
@@ -0,0 +1,61 @@
+package io.validator;
+
+import io.validator.dto.LoadRequest;
+import io.validator.entity.LoadEntity;
+import io.validator.service.archive.LoadArchive;
+import io.validator.service.archive.LoadHistory;
+import lombok.SneakyThrows;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Compaction of old loads to the cold tier and history reads over both tiers.
+ */
+public class ArchiveTest extends ValidatorContextTest {
+    @Autowired
+    private LoadArchive loadArchive;
+    @Autowired
+    private LoadHistory loadHistory;
+    @Value("${validation.archive.dir}")
+    private Path archiveDir;
+
+    @Test
+    @SneakyThrows
+    public void testArchiveMovesOldLoadsToColdTier() {
+        FileSystemUtils.deleteRecursively(archiveDir);
+        try {
+            String[][] loads = {
+                    {"1", "1", "2000-01-03T10:00:00"},
+                    {"2", "2", "2000-01-04T10:00:00"},
+                    {"3", "1", "2000-01-10T10:00:00"},
+                    {"4", "1", "2000-01-24T10:00:00"}};
+            for (String[] load : loads) {
+                validationService.validate(LoadRequest.builder().id(load[0]).customerId(load[1]).loadAmount("$100").time(LocalDateTime.parse(load[2])).build());
+            }
+            loadWriter.flush();
+
+            Assert.assertEquals(3, loadArchive.compact());
+            Assert.assertEquals(0, loadArchive.compact());
+
+            Assert.assertEquals(1, loadRepository.count());
+            try (var files = Files.list(archiveDir)) {
+                Assert.assertEquals(3, files.count());
+            }
+            Assert.assertEquals(List.of("2"), loadHistory.findAllByCustomerIdOrderByTimeDesc("2").stream().map(LoadEntity::getLoadId).toList());
+            List<LoadEntity> history = loadHistory.findAllByCustomerIdOrderByTimeDesc("1");
+            Assert.assertEquals(List.of("4", "3", "1"), history.stream().map(LoadEntity::getLoadId).toList());
+            Assert.assertTrue(history.stream().allMatch(LoadEntity::isAccepted));
+            Assert.assertEquals(10000, history.get(2).getLoadAmountCents());
+        } finally {
+            FileSystemUtils.deleteRecursively(archiveDir);
+        }
+    }
+}
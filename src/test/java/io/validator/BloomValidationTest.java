@@ -0,0 +1,10 @@
+package io.validator;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The validation suite with the Bloom filter in front of the idempotency lookups.
+ */
+@TestPropertySource(properties = "validation.idempotency.bloom.enabled=true")
+public class BloomValidationTest extends ValidationTest {
+}
@@ -0,0 +1,52 @@
+package io.validator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.validator.service.metrics.ValidationMetrics;
+import io.validator.service.partition.CustomerPartitions;
+import io.validator.service.partition.CustomerQueueFullException;
+import lombok.SneakyThrows;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded customer lanes.
+ */
+public class CustomerPartitionsTest {
+
+    @Test
+    @SneakyThrows
+    public void testLaneRejection() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CustomerPartitions partitions = new CustomerPartitions(1, 1, new ValidationMetrics(registry));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> running = partitions.trySubmit("1", () -> {
+                started.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            started.await();
+            CompletableFuture<Boolean> queued = partitions.trySubmit("1", () -> true);
+
+            Assert.assertThrows(CustomerQueueFullException.class, () -> partitions.trySubmit("2", () -> true));
+            Assert.assertEquals(1, registry.get("validation.lane.rejected").counter().count(), 0);
+            Assert.assertEquals(1, registry.get("validation.lane.queued").gauge().value(), 0);
+
+            release.countDown();
+            Assert.assertTrue(running.get());
+            Assert.assertTrue(queued.get());
+        } finally {
+            release.countDown();
+            partitions.preDestroy();
+        }
+    }
+}
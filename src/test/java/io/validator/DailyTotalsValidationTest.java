@@ -0,0 +1,10 @@
+package io.validator;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The validation suite with windows read from customer_daily_totals.
+ */
+@TestPropertySource(properties = {"validation.window.mode=daily-totals", "validation.persistence.daily.totals=true"})
+public class DailyTotalsValidationTest extends ValidationTest {
+}
@@ -0,0 +1,62 @@
+package io.validator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.service.decision.DecisionEvent;
+import io.validator.service.decision.DecisionLog;
+import io.validator.service.metrics.ValidationMetrics;
+import io.validator.service.rule.LimitPlan;
+import io.validator.service.rule.LimitRule;
+import io.validator.service.window.WindowTotals;
+import lombok.SneakyThrows;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Binary decision log file.
+ */
+public class DecisionLogTest {
+
+    @Test
+    @SneakyThrows
+    public void testDecisionLogFile() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        Path file = Files.createTempFile("decisions", ".bin");
+        LimitPlan plan = LimitPlan.compile(LimitRule.parseAll("customer:day:amount:5000,customer:week:amount:20000,customer:day:count:3"));
+        LocalDateTime time = LocalDateTime.parse("2000-01-03T10:00:00");
+        DecisionLog decisionLog = new DecisionLog("file", 16, file.toString(), new ValidationMetrics(registry));
+        try {
+            Assert.assertFalse(new DecisionLog("off", 16, "", new ValidationMetrics(registry)).isEnabled(false));
+            decisionLog.postConstruct();
+            Assert.assertTrue(decisionLog.isEnabled(true));
+            for (int i = 0; i < 10; i++) {
+                LoadEntity entity = LoadEntity.builder().loadId(String.valueOf(i)).customerId("1").time(time).loadAmountCents(Money.parseCents("$1000")).build();
+                WindowTotals totals = new WindowTotals(i * 100000L, i, i * 100000L);
+                decisionLog.record(plan, entity, totals, plan.evaluate(entity, totals, window -> null));
+            }
+            decisionLog.preDestroy();
+
+            List<DecisionEvent> events = DecisionLog.read(file);
+            Assert.assertEquals(10, events.size() + (long) registry.get("validation.decision.dropped").counter().count());
+            for (DecisionEvent event : events) {
+                int i = Integer.parseInt(event.getLoadId());
+                Assert.assertEquals(time, event.getTime());
+                Assert.assertEquals(100000, event.getAmount());
+                Assert.assertEquals(500000 - i * 100000L, event.getRemainingDailyAmount());
+                Assert.assertEquals(3 - i, event.getRemainingDailyCount());
+                Assert.assertEquals(i < 3, event.isDailyCountAccepted());
+                Assert.assertEquals(i < 3, event.isAccepted());
+            }
+        } finally {
+            decisionLog.preDestroy();
+            Files.delete(file);
+        }
+    }
+}
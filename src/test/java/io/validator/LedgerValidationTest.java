@@ -0,0 +1,10 @@
+package io.validator;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The validation suite with windows from the in-memory customer ledger.
+ */
+@TestPropertySource(properties = "validation.window.mode=ledger")
+public class LedgerValidationTest extends ValidationTest {
+}
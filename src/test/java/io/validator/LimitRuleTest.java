@@ -0,0 +1,57 @@
+package io.validator;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.service.rule.LimitPlan;
+import io.validator.service.rule.LimitRule;
+import io.validator.service.window.LoadTimeline;
+import io.validator.service.window.WindowType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiled limit rules evaluated against a timeline.
+ */
+public class LimitRuleTest {
+
+    @Test
+    public void testLimitPlan() {
+        LimitPlan plan = LimitPlan.compile(LimitRule.parseAll(
+                "customer:day:amount:5000,customer:week:amount:20000,customer:day:count:3,load:amount:400,"
+                        + "customer:hour:amount:300,customer:hour:amount:250,customer:hour:count:2,customer:month:amount:1000"));
+        Assert.assertEquals(Set.of(WindowType.HOUR, WindowType.MONTH), plan.getWindows());
+
+        LoadTimeline timeline = new LoadTimeline();
+        AtomicInteger aggregates = new AtomicInteger();
+        String[][] loads = {
+                {"2000-01-03T10:00:00", "$500", "load:amount:400.00"},
+                {"2000-01-03T10:20:00", "$200", null},
+                {"2000-01-03T10:40:00", "$100", "customer:hour:amount:250.00"},
+                {"2000-01-04T11:00:00", "$10", null},
+                {"2000-01-04T11:20:00", "$10", null},
+                {"2000-01-04T11:40:00", "$10", "customer:hour:count:2"},
+                {"2000-01-05T12:00:00", "$250", null},
+                {"2000-01-06T12:00:00", "$250", null},
+                {"2000-01-07T12:00:00", "$250", null},
+                {"2000-01-08T12:00:00", "$250", "customer:month:amount:1000.00"}};
+        for (String[] load : loads) {
+            LocalDateTime at = LocalDateTime.parse(load[0]);
+            LoadEntity entity = LoadEntity.builder().loadId(load[0]).customerId("1").time(at).loadAmountCents(Money.parseCents(load[1])).build();
+            aggregates.set(0);
+            boolean accepted = plan.evaluate(entity, timeline.totals(at), window -> {
+                aggregates.incrementAndGet();
+                return timeline.aggregate(window.start(at), at);
+            });
+            Assert.assertEquals(load[1] + " at " + at, load[2], entity.getRejectedByRule());
+            Assert.assertEquals(load[2] == null, accepted);
+            Assert.assertTrue(aggregates.get() <= plan.getWindows().size());
+            if (accepted) {
+                timeline.add(at, entity.getLoadAmountCents());
+            }
+        }
+    }
+}
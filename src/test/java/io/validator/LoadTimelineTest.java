@@ -0,0 +1,66 @@
+package io.validator;
+
+import io.validator.entity.LoadEntity;
+import io.validator.money.Money;
+import io.validator.repository.LoadWindowTotals;
+import io.validator.service.window.LoadTimeline;
+import io.validator.service.window.WindowTotals;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Window totals of the in-memory timeline against the window queries of the load table.
+ */
+public class LoadTimelineTest extends ValidatorContextTest {
+
+    @Test
+    public void testLoadTimelineMatchesDatabaseWindows() {
+        Random random = new Random(18);
+        LocalDateTime monday = LocalDateTime.of(2000, 1, 3, 0, 0);
+        int span = 3 * 7 * 24 * 3600;
+        for (int round = 0; round < 20; round++) {
+            String customerId = "timeline-" + round;
+            LoadTimeline timeline = new LoadTimeline();
+            List<LocalDateTime> times = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                LocalDateTime time = !times.isEmpty() && random.nextInt(5) == 0
+                        ? times.get(random.nextInt(times.size()))
+                        : monday.plusSeconds(random.nextInt(span));
+                long amount = 1 + random.nextInt(100_000);
+                boolean accepted = random.nextInt(10) > 0;
+                times.add(time);
+                loadRepository.save(LoadEntity.builder()
+                        .loadId(String.valueOf(i))
+                        .customerId(customerId)
+                        .time(time)
+                        .loadAmountCents(amount)
+                        .dailyCountAccepted(true)
+                        .dailyLimitAccepted(true)
+                        .weeklyLimitAccepted(accepted)
+                        .build());
+                if (accepted) {
+                    timeline.add(time, amount);
+                }
+                for (int q = 0; q < 5; q++) {
+                    LocalDateTime to = random.nextBoolean() ? times.get(random.nextInt(times.size())) : monday.plusSeconds(random.nextInt(span));
+                    LocalDateTime dayStart = to.truncatedTo(ChronoUnit.DAYS);
+                    LoadWindowTotals expected = loadRepository.getValidLoadTotalsBetweenDates(customerId,
+                            dayStart.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), dayStart, to);
+                    WindowTotals actual = timeline.totals(to);
+                    String message = String.format("customer %s at %s", customerId, to);
+                    Assert.assertEquals(message, Money.toCents(expected.getDailyAmount()), actual.getDailyAmount());
+                    Assert.assertEquals(message, expected.getDailyCount(), actual.getDailyCount());
+                    Assert.assertEquals(message, Money.toCents(expected.getWeeklyAmount()), actual.getWeeklyAmount());
+                }
+            }
+        }
+    }
+}
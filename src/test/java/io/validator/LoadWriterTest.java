@@ -0,0 +1,52 @@
+package io.validator;
+
+import io.validator.entity.LoadEntity;
+import io.validator.repository.LoadRepository;
+import io.validator.service.persistence.LoadWriter;
+import lombok.SneakyThrows;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit of the load writer.
+ */
+public class LoadWriterTest extends ValidatorContextTest {
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @SneakyThrows
+    public void testGroupCommitFallsBackToSingleInserts() {
+        LocalDateTime time = LocalDateTime.parse("2000-01-03T10:00:00");
+        loadWriter.save(LoadEntity.builder().loadId("0").customerId("group").time(time).loadAmountCents(100).build());
+        LoadRepository repository = Mockito.mock(LoadRepository.class, AdditionalAnswers.delegatesTo(loadRepository));
+        LoadWriter writer = new LoadWriter(repository, transactionManager, false, 10, 500);
+        writer.postConstruct();
+        List<CompletableFuture<LoadEntity>> saves = new ArrayList<>();
+        try {
+            for (int i = 0; i < 6; i++) {
+                saves.add(writer.saveAsync(LoadEntity.builder().loadId(String.valueOf(i)).customerId("group").time(time.plusMinutes(i)).loadAmountCents(100).build()));
+            }
+            CompletableFuture.allOf(saves.toArray(new CompletableFuture[0])).exceptionally(e -> null).get(10, TimeUnit.SECONDS);
+        } finally {
+            writer.preDestroy();
+        }
+
+        Assert.assertTrue(saves.get(0).isCompletedExceptionally());
+        Assert.assertTrue(saves.subList(1, 6).stream().noneMatch(CompletableFuture::isCompletedExceptionally));
+        Mockito.verify(repository).saveAll(Mockito.<List<LoadEntity>>argThat(batch -> batch.size() == 6));
+        Mockito.verify(repository, Mockito.times(6)).saveAll(Mockito.<List<LoadEntity>>argThat(batch -> batch.size() == 1));
+        Assert.assertEquals(6, loadRepository.findAllByCustomerIdOrderByTimeDesc("group").size());
+        Assert.assertTrue(writer.saveAsync(LoadEntity.builder().loadId("6").customerId("group").time(time).loadAmountCents(100).build()).isCompletedExceptionally());
+    }
+}
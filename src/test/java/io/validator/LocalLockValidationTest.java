@@ -0,0 +1,10 @@
+package io.validator;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The validation suite with in-process striped customer locks.
+ */
+@TestPropertySource(properties = "validation.lock.mode=local")
+public class LocalLockValidationTest extends ValidationTest {
+}
@@ -0,0 +1,43 @@
+package io.validator;
+
+import io.validator.money.Money;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+/**
+ * Cent parsing of load amounts.
+ */
+public class MoneyTest {
+
+    @Test
+    public void testAmountParsing() {
+        for (String amount : new String[]{"$0", "$1.5", "$3318.47", "$.99", "$10.", "$-25.10", "$92233720368547758.07"}) {
+            Assert.assertEquals(amount, 0, new BigDecimal(amount.replace("$", "")).compareTo(Money.toBigDecimal(Money.parseCents(amount))));
+        }
+        for (String amount : new String[]{"", "$", "$.", "$12a", "$1,000", "$ 5", "$92233720368547758.08"}) {
+            Assert.assertThrows(amount, NumberFormatException.class, () -> Money.parseCents(amount));
+        }
+    }
+
+    @Test
+    public void testAmountParsingMatchesBigDecimal() {
+        for (String amount : new String[]{"$0", "$1.5", "$3318.47", "$.99", "$10.", "$-25.10", "-$5", "+$3", "$+3", "$$5", "5$", "5",
+                "$1.234", "$1.235", "$-1.235", "$1.005", "$1e3", "$1E-2", "$0.000001", "", "$", "$.", "$12a", "$1,000", "$ 5"}) {
+            Long expected;
+            try {
+                expected = Money.toCents(new BigDecimal(amount.replace("$", "")));
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            if (expected == null) {
+                Assert.assertThrows(amount, NumberFormatException.class, () -> Money.parseCents(amount));
+            } else {
+                Assert.assertEquals(amount, expected.longValue(), Money.parseCents(amount));
+                char[] chars = (" " + amount + " ").toCharArray();
+                Assert.assertEquals(amount, expected.longValue(), Money.parseCents(chars, 1, amount.length()));
+            }
+        }
+    }
+}
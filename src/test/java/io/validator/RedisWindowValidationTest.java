@@ -0,0 +1,10 @@
+package io.validator;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The validation suite with windows counted in Redis by the load-windows script.
+ */
+@TestPropertySource(properties = "validation.window.mode=redis")
+public class RedisWindowValidationTest extends ValidationTest {
+}
@@ -0,0 +1,56 @@
+package io.validator;
+
+import io.validator.dto.LoadResponse;
+import io.validator.entity.LoadEntity;
+import io.validator.service.replay.LoadReplay;
+import io.validator.service.replay.ReplaySummary;
+import lombok.SneakyThrows;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Offline replay of load archives into the load table.
+ */
+public class ReplayTest extends ValidatorContextTest {
+    @Autowired
+    private LoadReplay loadReplay;
+
+    @Test
+    @SneakyThrows
+    public void testReplay() {
+        byte[] input = this.getClass().getClassLoader().getResourceAsStream("input.txt").readAllBytes();
+        String expected = validationService.validateFile(new MockMultipartFile("file", input));
+        Path archive = Files.createTempFile("replay", ".ndjson");
+        Path output = Files.createTempFile("replay", ".out");
+        try {
+            Files.write(archive, input);
+            loadReplay.replay(List.of(archive), output);
+            Assert.assertEquals(expected, Files.readString(output));
+
+            loadRepository.save(LoadEntity.builder().loadId("1").customerId("not-replayed").time(LocalDateTime.parse("2000-01-03T10:00:00")).loadAmountCents(100).build());
+            ReplaySummary summary = loadReplay.replay(List.of(archive), null);
+            Assert.assertEquals(summary.loads() - summary.duplicates() + 1, loadRepository.count());
+            for (String line : expected.split("\n")) {
+                LoadResponse response = objectMapper.readValue(line, LoadResponse.class);
+                LoadEntity entity = loadRepository.findByCustomerIdAndLoadId(response.getCustomerId(), response.getId()).orElseThrow();
+                Assert.assertEquals(line, response.isAccepted(),
+                        entity.isDailyCountAccepted() && entity.isDailyLimitAccepted() && entity.isWeeklyLimitAccepted());
+            }
+
+            Files.write(archive, (new String(input) + "{\"id\":\"" + "x".repeat(300) + "\",\"customer_id\":\"1\",\"load_amount\":\"$1.00\",\"time\":\"2000-01-01T00:00:00Z\"}\n").getBytes());
+            Assert.assertThrows(DataAccessException.class, () -> loadReplay.replay(List.of(archive), null));
+            Assert.assertEquals(summary.loads() - summary.duplicates() + 1, loadRepository.count());
+        } finally {
+            Files.delete(archive);
+            Files.delete(output);
+        }
+    }
+}
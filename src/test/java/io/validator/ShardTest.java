@@ -0,0 +1,121 @@
+package io.validator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.validator.dto.LoadRequest;
+import io.validator.dto.LoadResponse;
+import io.validator.repository.LoadRepository;
+import io.validator.service.ValidationService;
+import io.validator.service.shard.ShardCoordinator;
+import io.validator.service.shard.ShardRing;
+import io.validator.service.shard.ShardUnavailableException;
+import lombok.SneakyThrows;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Shard ownership and routing between two instances sharing the embedded Redis.
+ */
+public class ShardTest extends ValidatorContextTest {
+
+    @Test
+    @SneakyThrows
+    public void testShardRoutingAndFailover() {
+        ConfigurableApplicationContext nodeA = startNode("a");
+        ConfigurableApplicationContext nodeB = startNode("b");
+        try {
+            ShardCoordinator shardsA = nodeA.getBean(ShardCoordinator.class);
+            ShardCoordinator shardsB = nodeB.getBean(ShardCoordinator.class);
+            ShardRing ring = new ShardRing(List.of("a", "b"), 64);
+            await(() -> IntStream.range(0, 16).allMatch(shard -> ring.owner(shard).equals("a")
+                    ? shardsA.serves(shard) && !shardsB.serves(shard) && shardsB.ownerUrl(shard) != null
+                    : shardsB.serves(shard) && !shardsA.serves(shard) && shardsA.ownerUrl(shard) != null));
+            String customerA = IntStream.iterate(0, i -> i + 1).mapToObj(i -> "shard-" + i)
+                    .filter(customer -> shardsA.serves(ShardRing.shardOf(customer, 16))).findFirst().orElseThrow();
+            String customerB = IntStream.iterate(0, i -> i + 1).mapToObj(i -> "shard-" + i)
+                    .filter(customer -> shardsB.serves(ShardRing.shardOf(customer, 16))).findFirst().orElseThrow();
+
+            ConfigurableApplicationContext[] entries = {nodeA, nodeB, nodeA, nodeB};
+            for (int i = 0; i < entries.length; i++) {
+                LoadResponse response = postTo(entries[i], "/api/v1/validation", LoadRequest.builder().id(String.valueOf(i)).customerId(customerB).loadAmount("$100").time(LocalDateTime.parse("2000-01-03T10:00:00").plusMinutes(i)).build(), LoadResponse.class);
+                Assert.assertEquals(i < 3, response.isAccepted());
+            }
+            Assert.assertEquals(2, nodeA.getBean(MeterRegistry.class).get("validation.shard.forwarded").counter().count(), 0);
+
+            LoadResponse[] batch = postTo(nodeB, "/api/v1/validation/batch", List.of(
+                    LoadRequest.builder().id("10").customerId(customerA).loadAmount("$100").time(LocalDateTime.parse("2000-01-03T11:00:00")).build(),
+                    LoadRequest.builder().id("11").customerId(customerB).loadAmount("$100").time(LocalDateTime.parse("2000-01-04T11:00:00")).build()), LoadResponse[].class);
+            Assert.assertEquals(List.of(customerA, customerB), Arrays.stream(batch).map(LoadResponse::getCustomerId).toList());
+            Assert.assertTrue(batch[0].isAccepted() && batch[1].isAccepted());
+            HttpRequest stream = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + nodeA.getEnvironment().getProperty("local.server.port") + "/api/v1/validation/process-stream"))
+                    .POST(HttpRequest.BodyPublishers.ofString("")).build();
+            Assert.assertEquals(400, HttpClient.newHttpClient().send(stream, HttpResponse.BodyHandlers.discarding()).statusCode());
+
+            // a validation already running on node a when its lease of the shard lapses is not saved
+            String ownerKey = "validation:shard:owner:" + ShardRing.shardOf(customerA, 16);
+            StringRedisTemplate redis = nodeA.getBean(StringRedisTemplate.class);
+            redis.opsForValue().set(ownerKey, "x", Duration.ofSeconds(1));
+            await(() -> !shardsA.serves(ShardRing.shardOf(customerA, 16)));
+            LoadRequest lapsed = LoadRequest.builder().id("13").customerId(customerA).loadAmount("$100").time(LocalDateTime.parse("2000-01-03T13:00:00")).build();
+            Assert.assertThrows(ShardUnavailableException.class, () -> nodeA.getBean(ValidationService.class).validate(lapsed));
+            Assert.assertTrue(nodeA.getBean(LoadRepository.class).findAll().stream().noneMatch(load -> load.getLoadId().equals("13")));
+            await(() -> shardsA.serves(ShardRing.shardOf(customerA, 16)));
+
+            nodeB.close();
+            await(() -> shardsA.ownedShards() == 16);
+            LoadResponse afterFailover = postTo(nodeA, "/api/v1/validation", LoadRequest.builder().id("12").customerId(customerB).loadAmount("$100").time(LocalDateTime.parse("2000-01-03T12:00:00")).build(), LoadResponse.class);
+            Assert.assertFalse(afterFailover.isAccepted());
+        } finally {
+            nodeB.close();
+            nodeA.close();
+        }
+    }
+
+    @Test
+    public void testShardingRejectsUnsafeSettings() {
+        Assert.assertThrows(IllegalStateException.class, () -> new ShardCoordinator(null, null, null, null, true, 16, 64,
+                Duration.ofSeconds(2), Duration.ofMillis(100), "a", "", true).postConstruct());
+        Assert.assertThrows(IllegalStateException.class, () -> new ShardCoordinator(null, null, null, null, true, 16, 64,
+                Duration.ofSeconds(2), Duration.ofSeconds(1), "a", "", false).postConstruct());
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(ValidatorApplication.class).run(
+                "--spring.config.location=classpath:application.test.properties",
+                "--server.port=0",
+                "--validation.redis.embedded=false",
+                "--validation.shard.enabled=true",
+                "--validation.shard.node.id=" + nodeId,
+                "--validation.shard.count=16",
+                "--validation.shard.lease=2s",
+                "--validation.shard.heartbeat=100ms",
+                "--validation.window.mode=ledger",
+                "--validation.persistence.daily.totals=false",
+                "--validation.lock.mode=local",
+                "--validation.idempotency.bloom.enabled=false",
+                "--validation.decision.log=off");
+    }
+
+    @SneakyThrows
+    private <T> T postTo(ConfigurableApplicationContext node, String path, Object body, Class<T> type) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + node.getEnvironment().getProperty("local.server.port") + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+        Assert.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), type);
+    }
+}
@@ -0,0 +1,10 @@
+package io.validator;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The validation suite with windows from the in-memory load timelines.
+ */
+@TestPropertySource(properties = "validation.window.mode=timeline")
+public class TimelineValidationTest extends ValidationTest {
+}
@@ -1,32 +1,31 @@
 package io.validator;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JavaType;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.validator.dto.LoadRequest;
 import io.validator.dto.LoadResponse;
 import io.validator.entity.LoadEntity;
-import io.validator.repository.LoadRepository;
-import io.validator.service.ValidationService;
+import io.validator.service.idempotency.LoadIdempotency;
+import io.validator.service.lock.CustomerLocks;
+import io.validator.service.warmup.StartupWarmup;
+import io.validator.service.warmup.WarmupSummary;
+import io.validator.service.window.AtomicLoadWindows;
+import io.validator.service.window.DailyTotalsLoadWindows;
+import io.validator.service.window.DatabaseLoadWindows;
+import io.validator.service.window.LoadWindows;
+import io.validator.service.window.RedisLoadWindows;
+import io.validator.service.window.TimelineLoadWindows;
 import lombok.SneakyThrows;
 import org.junit.Assert;
-import org.junit.Before;
+import org.junit.Assume;
 import org.junit.Test;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
-import org.springframework.test.context.TestPropertySource;
-import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MvcResult;
-import org.springframework.test.web.servlet.ResultMatcher;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -39,42 +38,29 @@ import java.util.Queue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@RunWith(SpringRunner.class)
-@SpringBootTest(
-        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
-        classes = ValidatorApplication.class)
-@AutoConfigureMockMvc
-@TestPropertySource(
-        locations = "classpath:application.test.properties")
-public class ValidationTest {
+/**
+ * The validation suite, rerun by the subclasses for every window, lock and execution mode.
+ */
+public class ValidationTest extends ValidatorContextTest {
 
     @Autowired
-    private LoadRepository loadRepository;
-
+    private MeterRegistry meterRegistry;
     @Autowired
-    private ObjectMapper objectMapper;
-
+    private LoadWindows loadWindows;
     @Autowired
-    private ValidationService validationService;
-
+    private StartupWarmup startupWarmup;
     @Autowired
-    private MockMvc mvc;
-
-    @Value("${validation.limit.daily}")
-    private BigDecimal dailyLimit;
-    @Value("${validation.limit.weekly}")
-    private BigDecimal weeklyLimit;
-
-    @Before
-    public void cleanDb() {
-        loadRepository.deleteAll();
-        validationService.setDailyLimit(dailyLimit);
-        validationService.setWeeklyLimit(weeklyLimit);
-    }
+    private CustomerLocks customerLocks;
+    @Autowired
+    private LoadIdempotency loadIdempotency;
 
     @Test
     @SneakyThrows
@@ -278,6 +264,7 @@ public class ValidationTest {
         Assert.assertFalse(response.isAccepted());
         Assert.assertEquals(response.getCustomerId(), "1");
         Assert.assertEquals(response.getId(), "2");
+        loadWriter.flush();
         Optional<LoadEntity> entity = loadRepository.findByCustomerIdAndLoadId("1", "2");
         Assert.assertTrue(entity.isPresent());
         Assert.assertFalse(entity.get().isWeeklyLimitAccepted());
@@ -321,7 +308,296 @@ public class ValidationTest {
         Assert.assertTrue(response.isAccepted());
         Assert.assertEquals(response.getCustomerId(), "1");
         Assert.assertEquals(response.getId(), "1");
+        loadWriter.flush();
         Assert.assertEquals(1, loadRepository.findAll().size());
 
     }
+
+    @Test
+    public void testReload() {
+        LocalDateTime time = LocalDateTime.now();
+        for (int i = 1; i <= 3; i++) {
+            LoadResponse response = validationService.validate(LoadRequest.builder()
+                    .id(String.valueOf(i))
+                    .customerId("1")
+                    .loadAmount("$10")
+                    .time(time)
+                    .build());
+            Assert.assertTrue(response.isAccepted());
+        }
+
+        validationService.reload();
+
+        LoadResponse response = validationService.validate(LoadRequest.builder()
+                .id("4")
+                .customerId("1")
+                .loadAmount("$10")
+                .time(time)
+                .build());
+        Assert.assertFalse(response.isAccepted());
+
+        validationService.reload();
+
+        response = validationService.validate(LoadRequest.builder()
+                .id("1")
+                .customerId("1")
+                .loadAmount("$10")
+                .time(time.plusDays(1))
+                .build());
+        Assert.assertTrue(response.isAccepted());
+        loadWriter.flush();
+        Assert.assertEquals(4, loadRepository.findAll().size());
+    }
+
+    /**
+     * A late load is checked against the loads of its day up to its time by the database, daily totals and timeline
+     * windows, the ledger and Redis windows count the whole day so far.
+     */
+    @Test
+    public void testLateLoad() {
+        LocalDateTime noon = LocalDateTime.parse("2000-01-03T12:00:00");
+        Assert.assertTrue(validationService.validate(LoadRequest.builder().id("1").customerId("1").loadAmount("$3000").time(noon).build()).isAccepted());
+
+        boolean upToLoadTime = loadWindows instanceof DatabaseLoadWindows || loadWindows instanceof DailyTotalsLoadWindows
+                || loadWindows instanceof TimelineLoadWindows;
+        LoadResponse late = validationService.validate(LoadRequest.builder().id("2").customerId("1").loadAmount("$3000").time(noon.minusHours(2)).build());
+        Assert.assertEquals(upToLoadTime, late.isAccepted());
+    }
+
+    @Test
+    public void testFileValidationKeepsInputOrder() {
+        assertMatchesSerial((input, loadRequests) -> responses(validationService.validateFile(new MockMultipartFile("file", input))));
+    }
+
+    @Test
+    public void testStreamValidation() {
+        assertMatchesSerial((input, loadRequests) -> {
+            MvcResult result = mvc.perform(post("/api/v1/validation/process-stream")
+                            .content(input)
+                            .contentType("application/x-ndjson"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            return responses(mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        });
+    }
+
+    @Test
+    public void testBatchValidation() {
+        JavaType responseList = objectMapper.getTypeFactory().constructCollectionType(List.class, LoadResponse.class);
+        assertMatchesSerial((input, loadRequests) -> objectMapper.readValue(mvc.perform(post("/api/v1/validation/batch")
+                        .content(objectMapper.writeValueAsString(loadRequests))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), responseList));
+        assertMatchesSerial((input, loadRequests) -> validationService.validateBatch(loadRequests));
+    }
+
+    @Test
+    public void testAsyncValidation() {
+        assertMatchesSerial((input, loadRequests) -> {
+            MvcResult result = mvc.perform(post("/api/v1/validation/async")
+                            .content(objectMapper.writeValueAsString(loadRequests.get(0)))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            List<LoadResponse> responses = new ArrayList<>();
+            responses.add(objectMapper.readValue(mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), LoadResponse.class));
+            for (LoadRequest loadRequest : loadRequests.subList(1, loadRequests.size())) {
+                responses.add(validationService.validateAsync(loadRequest).get(10, TimeUnit.SECONDS));
+            }
+            return responses;
+        });
+    }
+
+    @Test
+    @SneakyThrows
+    public void testFileValidationSkipsMalformedLines() {
+        String input = String.join("\n",
+                "{\"id\":\"1\",\"customer_id\":\"1\",\"load_amount\":\"$10.00\",\"time\":\"2000-01-01T00:00:00Z\"}",
+                "{\"id\":\"2\",\"customer_id\":\"1\",",
+                "",
+                "{\"id\":\"3\",\"customer_id\":\"1\",\"load_amount\":\"$10.00\",\"time\":\"2000-01-01T00:00:00Z\",\"other\":1}",
+                "{\"id\":\"4\",\"customer_id\":\"1\",\"load_amount\":\"$10.00\",\"time\":\"2000-01-01T25:00:00Z\"}",
+                "{\"id\":\"6\",\"customer_id\":\"1\",\"load_amount\":\"$10.0x\",\"time\":\"2000-01-01T00:00:00Z\"}",
+                "{\"time\":\"2000-01-02T10:15:30.5Z\",\"load_amount\":\"$20.00\",\"customer_id\":\"1\",\"id\":5}\r");
+
+        String output = validationService.validateFile(new MockMultipartFile("file", input.getBytes()));
+
+        Assert.assertEquals("{\"id\":\"1\",\"accepted\":true,\"customer_id\":\"1\"}\n{\"id\":\"5\",\"accepted\":true,\"customer_id\":\"1\"}\n", output);
+        loadWriter.flush();
+        Assert.assertEquals(LocalDateTime.of(2000, 1, 2, 10, 15, 30, 500_000_000),
+                loadRepository.findByCustomerIdAndLoadId("1", "5").orElseThrow().getTime());
+        Assert.assertEquals(2000, loadRepository.findByCustomerIdAndLoadId("1", "5").orElseThrow().getLoadAmountCents());
+    }
+
+    /**
+     * Batch 1 holds customers a and b, batch 2 customers c and d, where a and d share a lock and so do b and c,
+     * but the lock of b comes first although a is the smaller id. Batch 1 queues on the lock of a before batch 2
+     * takes the lock of c, locking in customer id order would then deadlock until the lock timeout.
+     */
+    @Test
+    @SneakyThrows
+    public void testConcurrentBatchesLockInKeyOrder() {
+        Map<String, List<String>> byKey = new HashMap<>();
+        IntStream.range(0, 20000).mapToObj(i -> "batch-" + i)
+                .forEach(customerId -> byKey.computeIfAbsent(customerLocks.lockKey(customerId), key -> new ArrayList<>()).add(customerId));
+        String[] customers = byKey.values().stream().filter(ids -> ids.size() > 1).flatMap(first -> byKey.values().stream()
+                        .filter(second -> second.size() > 1 && customerLocks.lockKey(second.get(0)).compareTo(customerLocks.lockKey(first.get(0))) < 0)
+                        .filter(second -> first.get(0).compareTo(second.get(0)) < 0 && second.get(1).compareTo(first.get(1)) < 0)
+                        .map(second -> new String[]{first.get(0), second.get(0), second.get(1), first.get(1)}))
+                .findFirst().orElse(null);
+        Assume.assumeNotNull((Object) customers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Assert.assertTrue(customerLocks.tryLock(customers[0], 1, TimeUnit.SECONDS));
+        List<Future<List<LoadResponse>>> batches = new ArrayList<>();
+        try {
+            for (int batch = 0; batch < 2; batch++) {
+                List<LoadRequest> loadRequests = List.of(
+                        LoadRequest.builder().id("1").customerId(customers[batch * 2]).loadAmount("$10").time(LocalDateTime.parse("2000-01-03T10:00:00")).build(),
+                        LoadRequest.builder().id("1").customerId(customers[batch * 2 + 1]).loadAmount("$10").time(LocalDateTime.parse("2000-01-03T10:00:00")).build());
+                batches.add(executor.submit(() -> validationService.validateBatch(loadRequests)));
+                Thread.sleep(500);
+            }
+        } finally {
+            customerLocks.unlock(customers[0]);
+        }
+        for (Future<List<LoadResponse>> batch : batches) {
+            Assert.assertTrue(batch.get(5, TimeUnit.SECONDS).stream().allMatch(LoadResponse::isAccepted));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testMetrics() {
+        double accepted = meterRegistry.timer("validation.request", "outcome", "accepted").count();
+        double duplicate = meterRegistry.timer("validation.request", "outcome", "duplicate").count();
+        LoadRequest loadRequest = LoadRequest.builder()
+                .id("1")
+                .customerId("1")
+                .loadAmount("$10")
+                .time(LocalDateTime.now())
+                .build();
+
+        validationService.validate(loadRequest);
+        validationService.validate(loadRequest);
+
+        Assert.assertEquals(accepted + 1, meterRegistry.timer("validation.request", "outcome", "accepted").count(), 0);
+        Assert.assertEquals(duplicate + 1, meterRegistry.timer("validation.request", "outcome", "duplicate").count(), 0);
+        Assert.assertTrue(meterRegistry.timer("validation.stage", "stage", "save").count() > 0);
+        Assert.assertEquals(0, meterRegistry.get("validation.lock.held").gauge().value(), 0);
+    }
+
+    @Test
+    public void testAmountPersistence() {
+        LoadEntity entity = new LoadEntity(LoadRequest.builder()
+                .id("1")
+                .customerId("1")
+                .loadAmount("$3318.47")
+                .time(LocalDateTime.parse("2000-01-03T10:00:00.1234567"))
+                .build());
+        loadRepository.save(entity);
+        loadWriter.flush();
+        LoadEntity saved = loadRepository.findByCustomerIdAndLoadId("1", "1").orElseThrow();
+        Assert.assertEquals(331847, saved.getLoadAmountCents());
+        Assert.assertEquals(LocalDateTime.parse("2000-01-03T10:00:00.123457"), entity.getTime());
+        Assert.assertEquals(entity.getTime(), saved.getTime());
+    }
+
+    @Test
+    public void testLimitRules() {
+        Assume.assumeFalse(loadWindows instanceof AtomicLoadWindows);
+        LocalDateTime time = LocalDateTime.now();
+        validationService.setLimitRules("load:amount:1000");
+        LoadRequest loadRequest = LoadRequest.builder().id("1").customerId("1").loadAmount("$1500").time(time).build();
+        Assert.assertFalse(validationService.validate(loadRequest).isAccepted());
+        Assert.assertTrue(validationService.validate(LoadRequest.builder().id("2").customerId("1").loadAmount("$1000").time(time).build()).isAccepted());
+        Assert.assertEquals("load:amount:1000.00", loadRepository.findByCustomerIdAndLoadId("1", "1").orElseThrow().getRejectedByRule());
+        if (!loadWindows.supportsAggregates()) {
+            Assert.assertThrows(IllegalStateException.class, () -> validationService.setLimitRules("customer:hour:count:1"));
+        }
+    }
+
+    /**
+     * The warm-up removes only its own loads and state: a customer whose id has the scratch prefix keeps its loads,
+     * and Redis counters that the db does not hold yet, like those of another instance, survive it.
+     */
+    @Test
+    @SneakyThrows
+    public void testWarmupRemovesScratchLoads() {
+        LocalDateTime time = LocalDateTime.parse("2000-01-01T00:00:00");
+        Assert.assertTrue(validationService.validate(LoadRequest.builder().id("1").customerId("528").loadAmount("$4000").time(time).build()).isAccepted());
+        Assert.assertTrue(validationService.validate(LoadRequest.builder().id("1").customerId("~warmup-0-528").loadAmount("$4000").time(time).build()).isAccepted());
+        if (loadWindows instanceof AtomicLoadWindows) {
+            Assert.assertTrue(validationService.validate(LoadRequest.builder().id("1").customerId("other-instance").loadAmount("$4000").time(time).build()).isAccepted());
+            loadWriter.flush();
+            loadRepository.deleteAll(loadRepository.findAllByCustomerIdOrderByTimeDesc("other-instance"));
+        }
+
+        WarmupSummary summary = startupWarmup.warmUp();
+
+        Assert.assertTrue(summary.rounds() >= 1 && summary.rounds() <= 2);
+        Assert.assertTrue(summary.p99Nanos() > 0);
+        Assert.assertEquals(2, loadRepository.count());
+        Assert.assertFalse(validationService.validate(LoadRequest.builder().id("2").customerId("528").loadAmount("$1001").time(time).build()).isAccepted());
+        Assert.assertFalse(validationService.validate(LoadRequest.builder().id("2").customerId("~warmup-0-528").loadAmount("$1001").time(time).build()).isAccepted());
+        Assert.assertTrue(validationService.validate(LoadRequest.builder().id("3").customerId("15887").loadAmount("$5000").time(time).build()).isAccepted());
+        if (loadWindows instanceof AtomicLoadWindows) {
+            Assert.assertFalse(validationService.validate(LoadRequest.builder().id("2").customerId("other-instance").loadAmount("$1001").time(time).build()).isAccepted());
+        }
+    }
+
+    /**
+     * A retry on an instance that does not see the first insert yet, simulated by removing the row and the
+     * idempotency state, gets the first decision from the script and is counted once.
+     */
+    @Test
+    public void testRedisWindowsCountRetriesOnce() {
+        Assume.assumeTrue(loadWindows instanceof RedisLoadWindows);
+        LocalDateTime time = LocalDateTime.parse("2000-01-03T10:00:00");
+        LoadRequest loadRequest = LoadRequest.builder().id("1").customerId("retry").loadAmount("$3000").time(time).build();
+        Assert.assertTrue(validationService.validate(loadRequest).isAccepted());
+        loadWriter.flush();
+        loadRepository.deleteAll();
+        loadIdempotency.reload();
+
+        Assert.assertTrue(validationService.validate(loadRequest).isAccepted());
+        loadWriter.flush();
+        Assert.assertEquals(300000, loadWindows.totals("retry", time).getDailyAmount());
+        Assert.assertEquals(1, loadWindows.totals("retry", time).getDailyCount());
+        Assert.assertEquals(0, loadRepository.count());
+        Assert.assertFalse(validationService.validate(LoadRequest.builder().id("2").customerId("retry").loadAmount("$3000").time(time).build()).isAccepted());
+    }
+
+    /**
+     * Validates input.txt one load at a time, then on an empty db through the given path, which has to answer the
+     * same in input order.
+     */
+    @SneakyThrows
+    private void assertMatchesSerial(ValidationPath path) {
+        byte[] input = input();
+        List<LoadRequest> loadRequests = requests(input);
+        List<LoadResponse> serial = new ArrayList<>();
+        loadRequests.forEach(loadRequest -> serial.add(validationService.validate(loadRequest)));
+        cleanDb();
+
+        Assert.assertEquals(serial, path.validate(input, loadRequests));
+    }
+
+    @SneakyThrows
+    private List<LoadResponse> responses(String output) {
+        List<LoadResponse> responses = new ArrayList<>();
+        for (String line : output.split("\n")) {
+            responses.add(objectMapper.readValue(line, LoadResponse.class));
+        }
+        return responses;
+    }
+
+    private interface ValidationPath {
+        List<LoadResponse> validate(byte[] input, List<LoadRequest> loadRequests) throws Exception;
+    }
 }
@@ -0,0 +1,100 @@
+package io.validator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.validator.dto.LoadRequest;
+import io.validator.repository.LoadRepository;
+import io.validator.service.ValidationService;
+import io.validator.service.persistence.LoadWriter;
+import lombok.SneakyThrows;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Application context of the validation tests, each class gets its own context on the embedded Redis and H2 and
+ * starts every test on an empty load table.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        classes = ValidatorApplication.class)
+@AutoConfigureMockMvc
+@TestPropertySource(
+        locations = "classpath:application.test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public abstract class ValidatorContextTest {
+
+    @Autowired
+    protected LoadRepository loadRepository;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    protected ValidationService validationService;
+
+    @Autowired
+    protected MockMvc mvc;
+
+    @Autowired
+    protected LoadWriter loadWriter;
+
+    @Value("${validation.limit.daily}")
+    protected BigDecimal dailyLimit;
+    @Value("${validation.limit.weekly}")
+    protected BigDecimal weeklyLimit;
+    @Value("${validation.limit.rules}")
+    protected String limitRules;
+
+    @Before
+    public void cleanDb() {
+        loadWriter.flush();
+        loadRepository.deleteAll();
+        validationService.reload();
+        validationService.setDailyLimit(dailyLimit);
+        validationService.setWeeklyLimit(weeklyLimit);
+        validationService.setLimitRules(limitRules);
+    }
+
+    @SneakyThrows
+    protected byte[] input() {
+        return this.getClass().getClassLoader().getResourceAsStream("input.txt").readAllBytes();
+    }
+
+    @SneakyThrows
+    protected List<LoadRequest> requests(byte[] input) {
+        List<LoadRequest> loadRequests = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(input)))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                loadRequests.add(objectMapper.readValue(line, LoadRequest.class));
+            }
+        }
+        return loadRequests;
+    }
+
+    @SneakyThrows
+    protected static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+}